@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link AmountColumnParser} with the regex and BigDecimal parser it replaced.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="AmountParserBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountParserBenchmark {
+
+    private static final String[] SAMPLE_VALUES = {
+        "1234.56", "$1,234.56", "-75.00", "5000.0", "$ 12.99", "250",
+        "1,000,000.00", "-0.5", "$3,450.10", "89.9", "12.3456", "-1,200.00"
+    };
+
+    private String[] values;
+    private AmountColumnParser parser;
+
+    @Setup
+    public void setUp() {
+        values = new String[1024];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = SAMPLE_VALUES[i % SAMPLE_VALUES.length];
+        }
+        parser = new AmountColumnParser();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void legacyRegex(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(legacyParseAmount(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void columnParserDecimal(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(parser.parseDecimal(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public long columnParserMinorUnits() {
+        long total = 0;
+        for (String value : values) {
+            if (parser.parse(value) == AmountColumnParser.MINOR_UNITS) {
+                total += parser.getMinorUnits();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The amount parser as it was before {@link AmountColumnParser}
+     */
+    private static BigDecimal legacyParseAmount(String amountStr) {
+        if (amountStr == null || amountStr.isEmpty()) {
+            return null;
+        }
+        String cleaned = amountStr.replaceAll("[^\\d.-]", "").trim();
+        if (cleaned.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(cleaned);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to parse amount: " + amountStr);
+        }
+    }
+}
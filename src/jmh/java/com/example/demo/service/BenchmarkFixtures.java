@@ -0,0 +1,255 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic inputs and service wiring shared by the benchmarks.
+ * Rows are shaped like sample_financial_data.csv and generated from a fixed seed, so every run of
+ * a given size parses the same data.
+ */
+public final class BenchmarkFixtures {
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        JSON("json", "application/json"),
+        TXT("txt", "text/plain"),
+        ZIP("zip", "application/zip");
+
+        final String extension;
+        final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+    }
+
+    static final String[] HEADERS = {"Date", "Amount", "Description", "Category", "Account"};
+
+    private static final String[] DESCRIPTIONS = {
+        "Monthly Salary", "Rent Payment", "Grocery Shopping", "Gas Station", "Electric Bill",
+        "Restaurant", "Online Purchase", "Coffee Shop", "Insurance Premium", "Freelance Project"
+    };
+    private static final String[] CATEGORIES = {"Income", "Expense", "Transfer", "Investment"};
+    private static final String[] ACCOUNTS = {"Checking Account", "Credit Card", "Savings Account"};
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    private BenchmarkFixtures() {
+    }
+
+    static FinancialDataService service(ThreadPoolExecutor zipEntryExecutor) {
+        return service(zipEntryExecutor, CsvEventReader.Engine.FAST);
+    }
+
+    static FinancialDataService service(ThreadPoolExecutor zipEntryExecutor, CsvEventReader.Engine csvEngine) {
+        return new FinancialDataService(new FileTypeDetector(), new JsonEventReader(new ObjectMapper()),
+            new ExcelEventReader(true), new CsvEventReader(csvEngine), zipEntryExecutor,
+            ConversionMetrics.unregistered());
+    }
+
+    static ThreadPoolExecutor zipEntryExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Synthetic data set of the given size as cell strings in {@link #HEADERS} order
+     */
+    static String[][] rows(int count) {
+        Random random = new Random(42);
+        String[][] rows = new String[count][];
+        for (int i = 0; i < count; i++) {
+            long cents = random.nextInt(500_000) - 250_000;
+            rows[i] = new String[] {
+                START.plusDays(i % 3650).toString(),
+                (cents < 0 ? "-" : "") + Math.abs(cents) / 100 + "." + String.format("%02d", Math.abs(cents) % 100),
+                DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                CATEGORIES[random.nextInt(CATEGORIES.length)],
+                ACCOUNTS[random.nextInt(ACCOUNTS.length)]
+            };
+        }
+        return rows;
+    }
+
+    /**
+     * Writes a synthetic file of the given format and size into the directory
+     */
+    static MultipartFile generate(Format format, int rowCount, Path directory) throws IOException {
+        Path path = directory.resolve("financial_data_" + rowCount + "." + format.extension);
+        String[][] rows = rows(rowCount);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            switch (format) {
+                case CSV -> writeDelimited(rows, ',', out);
+                case TXT -> writeDelimited(rows, '\t', out);
+                case JSON -> writeJson(rows, out);
+                case XLSX -> writeXlsx(rows, out);
+                case ZIP -> writeZip(rows, out);
+            }
+        }
+        return new FileUpload(path, format.contentType);
+    }
+
+    static Path createTempDirectory() throws IOException {
+        return Files.createTempDirectory("financial-benchmark-");
+    }
+
+    static void deleteDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void writeDelimited(String[][] rows, char delimiter, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(String.join(String.valueOf(delimiter), HEADERS));
+        writer.write('\n');
+        for (String[] row : rows) {
+            writer.write(String.join(String.valueOf(delimiter), row));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeJson(String[][] rows, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("[\n");
+        for (int i = 0; i < rows.length; i++) {
+            String[] row = rows[i];
+            writer.write(String.format("  {\"Date\": \"%s\", \"Amount\": %s, \"Description\": \"%s\", "
+                + "\"Category\": \"%s\", \"Account\": \"%s\"}", row[0], row[1], row[2], row[3], row[4]));
+            writer.write(i < rows.length - 1 ? ",\n" : "\n");
+        }
+        writer.write("]\n");
+        writer.flush();
+    }
+
+    private static void writeXlsx(String[][] rows, OutputStream out) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(1000)) {
+            Sheet sheet = workbook.createSheet("Transactions");
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < HEADERS.length; c++) {
+                header.createCell(c).setCellValue(HEADERS[c]);
+            }
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r + 1);
+                row.createCell(0).setCellValue(rows[r][0]);
+                row.createCell(1).setCellValue(Double.parseDouble(rows[r][1]));
+                for (int c = 2; c < HEADERS.length; c++) {
+                    row.createCell(c).setCellValue(rows[r][c]);
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * An archive with the rows split over one CSV, JSON, TXT and XLSX entry
+     */
+    private static void writeZip(String[][] rows, OutputStream out) throws IOException {
+        int part = (rows.length + 3) / 4;
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Format[] entries = {Format.CSV, Format.JSON, Format.TXT, Format.XLSX};
+        for (int i = 0; i < entries.length; i++) {
+            int from = Math.min(i * part, rows.length);
+            String[][] slice = Arrays.copyOfRange(rows, from, Math.min(from + part, rows.length));
+            zip.putNextEntry(new ZipEntry("part" + (i + 1) + "." + entries[i].extension));
+            OutputStream entry = new FilterOutputStream(zip) {
+                @Override
+                public void close() {
+                    // The entry is closed by the archive
+                }
+            };
+            switch (entries[i]) {
+                case CSV -> writeDelimited(slice, ',', entry);
+                case JSON -> writeJson(slice, entry);
+                case TXT -> writeDelimited(slice, '\t', entry);
+                default -> writeXlsx(slice, entry);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    /**
+     * Multipart upload backed by a file on disk, so large inputs are not held in memory
+     */
+    private static final class FileUpload implements MultipartFile {
+        private final Path path;
+        private final String contentType;
+
+        FileUpload(Path path, String contentType) {
+            this.path = path;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a synthetic CSV file per operation with each CSV engine.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="CsvEngineBenchmark -p rows=100000 -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvEngineBenchmark {
+
+    @Param({"FAST", "OPENCSV"})
+    public CsvEventReader.Engine engine;
+
+    @Param({"10000"})
+    public int rows;
+
+    private Path directory;
+    private ThreadPoolExecutor executor;
+    private FinancialDataService service;
+    private MultipartFile upload;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkFixtures.createTempDirectory();
+        upload = BenchmarkFixtures.generate(BenchmarkFixtures.Format.CSV, rows, directory);
+        executor = BenchmarkFixtures.zipEntryExecutor();
+        service = BenchmarkFixtures.service(executor, engine);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        BenchmarkFixtures.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public int parse(Blackhole bh) {
+        return service.streamFile(upload, bh::consume);
+    }
+}
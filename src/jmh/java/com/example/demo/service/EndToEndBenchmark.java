@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ZipProcessingResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload-to-report conversion as done by the /convert endpoint: the file is parsed into a
+ * {@link RecordSpool} and the report is written through a buffered UTF-8 writer. Sampled so that
+ * the percentiles (p50, p99, ...) of a conversion are reported.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="EndToEndBenchmark -p rows=100000 -prof gc"
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+
+    @Param({"CSV", "XLSX", "JSON", "TXT", "ZIP"})
+    public BenchmarkFixtures.Format format;
+
+    @Param({"10000"})
+    public int rows;
+
+    private final MarkdownConverterService markdown = new MarkdownConverterService();
+    private Path directory;
+    private ThreadPoolExecutor executor;
+    private FinancialDataService service;
+    private MultipartFile upload;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkFixtures.createTempDirectory();
+        upload = BenchmarkFixtures.generate(format, rows, directory);
+        executor = BenchmarkFixtures.zipEntryExecutor();
+        service = BenchmarkFixtures.service(executor);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        BenchmarkFixtures.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public int convert() throws IOException {
+        try (RecordSpool records = new RecordSpool()) {
+            Writer writer = new BufferedWriter(
+                new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 16 * 1024);
+            if (format == BenchmarkFixtures.Format.ZIP) {
+                ZipProcessingResult result = service.processZipFile(upload, records);
+                result.setAllRecords(records);
+                markdown.writeZipMarkdown(result, upload.getOriginalFilename(), writer);
+            } else {
+                service.streamFile(upload, records);
+                markdown.writeMarkdown(records, upload.getOriginalFilename(), writer);
+            }
+            writer.flush();
+            return records.size();
+        }
+    }
+}
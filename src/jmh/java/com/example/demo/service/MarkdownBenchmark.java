@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the report sections for an in-memory batch of synthetic records.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="MarkdownBenchmark -p rows=100000 -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarkdownBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private final MarkdownConverterService markdown = new MarkdownConverterService();
+    private RecordBatch batch;
+
+    @Setup
+    public void setUp() {
+        RecordBinder binder = new RecordBinder();
+        binder.setHeaders(BenchmarkFixtures.HEADERS);
+        batch = new RecordBatch();
+        for (String[] row : BenchmarkFixtures.rows(rows)) {
+            batch.acceptRow(binder.bindRow(row));
+        }
+    }
+
+    @Benchmark
+    public SummaryAggregator aggregate() {
+        return SummaryAggregator.of(batch);
+    }
+
+    @Benchmark
+    public String summary() throws IOException {
+        StringWriter summary = new StringWriter();
+        markdown.writeSummary(SummaryAggregator.of(batch), new MarkdownWriter(summary));
+        return summary.toString();
+    }
+
+    @Benchmark
+    public void table() throws IOException {
+        markdown.writeTable(batch, batch.size(), new MarkdownWriter(Writer.nullWriter()));
+    }
+
+    @Benchmark
+    public void report() throws IOException {
+        markdown.writeMarkdown(batch, "financial_data.csv", Writer.nullWriter());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MarkdownWriter} with the String.format and replace based formatting it replaced,
+ * writing one table row of a date, an amount and a text cell per operation.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="MarkdownWriterBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarkdownWriterBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final Writer out = Writer.nullWriter();
+    private final MarkdownWriter md = new MarkdownWriter(out);
+    private final LocalDate date = LocalDate.of(2026, 1, 15);
+    private final BigDecimal amount = new BigDecimal("-1234.56");
+    private final String text = "Grocery Store | Weekly";
+    private int index;
+
+    @Benchmark
+    public void legacyFormat() throws IOException {
+        out.append("| ").append(String.valueOf(++index)).append(" | ");
+        out.append(escapeMarkdown(date.format(DATE_FORMATTER))).append(" | ");
+        out.append(escapeMarkdown(String.format("$%,.2f", amount))).append(" | ");
+        out.append(escapeMarkdown(text)).append(" | ");
+        out.append("\n");
+    }
+
+    @Benchmark
+    public void markdownWriter() throws IOException {
+        md.text("| ").number(++index).text(" | ");
+        md.date(date).text(" | ");
+        md.currency(amount).text(" | ");
+        md.cell(text).text(" | ");
+        md.text("\n");
+    }
+
+    @Benchmark
+    public void markdownWriterMinorUnits() throws IOException {
+        md.text("| ").number(++index).text(" | ");
+        md.date(date).text(" | ");
+        md.currencyMinorUnits(-123456).text(" | ");
+        md.cell(text).text(" | ");
+        md.text("\n");
+    }
+
+    /**
+     * The cell escaping as it was before {@link MarkdownWriter#cell}
+     */
+    private static String escapeMarkdown(String text) {
+        return text.replace("|", "\\|").replace("\n", " ").replace("\r", " ");
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds one pre-split row per operation into the binder's reusable row, the per-row cost every
+ * parser pays after tokenizing.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="RecordBinderBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordBinderBenchmark {
+
+    private static final int DISTINCT_ROWS = 4096;
+
+    private String[][] rows;
+    private RecordBinder binder;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rows = BenchmarkFixtures.rows(DISTINCT_ROWS);
+        binder = new RecordBinder();
+        binder.setHeaders(BenchmarkFixtures.HEADERS);
+    }
+
+    @Benchmark
+    public Object bind() {
+        String[] row = rows[next];
+        next = (next + 1) % DISTINCT_ROWS;
+        return binder.bindRow(row);
+    }
+}
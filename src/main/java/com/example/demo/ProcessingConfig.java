@@ -0,0 +1,91 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the financial data processing pipeline
+ */
+@Configuration
+@EnableScheduling
+public class ProcessingConfig {
+
+    /**
+     * Fixed pool that parses ZIP entries concurrently.
+     * A parallelism of 0 or less means one thread per available processor.
+     */
+    @Bean(destroyMethod = "shutdown")
+    ThreadPoolExecutor zipEntryExecutor(@Value("${financial-data.zip.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), namedDaemonThreads("zip-entry-"));
+    }
+
+    /**
+     * Bounded pool that parses synchronous conversions, sized to the processors so that a burst of
+     * uploads cannot take the CPU from lightweight requests, which run on virtual threads.
+     * Submissions beyond the queue are rejected and answered with 429. Its threads wait on the ZIP
+     * entry pool but never the other way round, so the two must stay separate pools.
+     * A parallelism of 0 or less means one thread per available processor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ThreadPoolExecutor conversionExecutor(
+            @Value("${financial-data.conversion.parallelism:0}") int parallelism,
+            @Value("${financial-data.conversion.queue-capacity:64}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), namedDaemonThreads("conversion-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Worker pool of the asynchronous conversion jobs. The queue is bounded; submissions beyond it
+     * are rejected so that the API can answer 429 instead of piling up uploads.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ThreadPoolExecutor conversionJobExecutor(
+            @Value("${financial-data.jobs.workers:2}") int workers,
+            @Value("${financial-data.jobs.queue-capacity:16}") int queueCapacity) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), namedDaemonThreads("conversion-job-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Pool size, active threads, queued tasks and completed tasks of the three pools, so that a
+     * saturated pool shows up next to the stage timings
+     */
+    @Bean
+    MeterBinder processingExecutorMetrics(
+            @Qualifier("zipEntryExecutor") ThreadPoolExecutor zipEntryExecutor,
+            @Qualifier("conversionExecutor") ThreadPoolExecutor conversionExecutor,
+            @Qualifier("conversionJobExecutor") ThreadPoolExecutor conversionJobExecutor) {
+        return registry -> {
+            new ExecutorServiceMetrics(zipEntryExecutor, "zipEntryExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(conversionExecutor, "conversionExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(conversionJobExecutor, "conversionJobExecutor", Tags.empty()).bindTo(registry);
+        };
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
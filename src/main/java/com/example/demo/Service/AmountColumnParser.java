@@ -0,0 +1,336 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Amount parser for a single column.
+ * Scans each value once without regex or intermediate strings, accepting currency symbols and
+ * codes, thousands separators, leading or trailing minus signs, parenthesised negatives and
+ * decimal commas. Values with at most two fraction digits that fit in a long come out as minor
+ * units (cents); anything needing more precision falls back to a {@link BigDecimal}.
+ *
+ * Thousands separators must split the integer digits into groups of three. A value whose
+ * separators can only be read one way ("1,234.56", "1.234,56", "12,5", "0.005") decides the
+ * column's decimal separator, the way the first values of a date column decide its layout; values
+ * that fit both ("1,234", "12.345") are read with the column's separator, or with a decimal point
+ * while it is still undecided. The decision is made once. A column is reported as ambiguous when
+ * values were read with a decimal point before the column turned out to use decimal commas, when a
+ * later value only fits the other separator (it is still read the only way it fits), or when every
+ * value sampled fitted both. Instances are stateful and not thread-safe; use one per column per file.
+ */
+public class AmountColumnParser {
+
+    /** Value was blank or contained no digits */
+    public static final int BLANK = 0;
+    /** Value is available from {@link #getMinorUnits()} */
+    public static final int MINOR_UNITS = 1;
+    /** Value is available from {@link #getDecimal()} */
+    public static final int DECIMAL = 2;
+
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    /**
+     * Decimal separators a column can use, in resolution priority order
+     */
+    public enum DecimalSeparator {
+        DOT,
+        COMMA;
+
+        int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    static final int DEFAULT_SAMPLE_SIZE = 64;
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L};
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int GROUP_DIGITS = 3;
+    private static final int DOT = DecimalSeparator.DOT.bit();
+    private static final int COMMA = DecimalSeparator.COMMA.bit();
+    private static final int BOTH = DOT | COMMA;
+
+    private final int sampleSize;
+    private int candidates = BOTH;
+    private int sampled;
+    private DecimalSeparator separator;
+    private boolean readWithDotWhileSampling;
+    private boolean ambiguous;
+    private long minorUnits;
+    private BigDecimal decimal;
+
+    public AmountColumnParser() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    AmountColumnParser(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Parses a value and keeps the result on this parser until the next call
+     *
+     * @return {@link #BLANK}, {@link #MINOR_UNITS} or {@link #DECIMAL}
+     * @throws IllegalArgumentException if the value has digits but is not a number
+     */
+    public int parse(CharSequence text) {
+        decimal = null;
+        if (text == null) {
+            return BLANK;
+        }
+
+        long digits = 0;
+        int digitCount = 0;
+        boolean leadingZero = false;
+        // Per separator: occurrences, digits before the first and the last one, and whether
+        // consecutive occurrences are all a group of three digits apart
+        int dotCount = 0;
+        int firstDot = 0;
+        int lastDot = 0;
+        boolean dotGroups = true;
+        int commaCount = 0;
+        int firstComma = 0;
+        int lastComma = 0;
+        boolean commaGroups = true;
+        boolean negative = false;
+        boolean openParen = false;
+        boolean parenthesised = false;
+        boolean closed = false;
+        int exponentStart = -1;
+
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (closed) {
+                    throw invalid(text);
+                }
+                if (digitCount == 0) {
+                    leadingZero = c == '0';
+                }
+                if (digitCount < MAX_LONG_DIGITS) {
+                    digits = digits * 10 + (c - '0');
+                }
+                digitCount++;
+            } else if (c == '.') {
+                if (dotCount++ == 0) {
+                    firstDot = digitCount;
+                } else if (digitCount - lastDot != GROUP_DIGITS) {
+                    dotGroups = false;
+                }
+                lastDot = digitCount;
+            } else if (c == ',') {
+                if (commaCount++ == 0) {
+                    firstComma = digitCount;
+                } else if (digitCount - lastComma != GROUP_DIGITS) {
+                    commaGroups = false;
+                }
+                lastComma = digitCount;
+            } else if (c == '-') {
+                if (openParen || parenthesised) {
+                    throw invalid(text); // "(-5)", "(5)-"
+                }
+                if (digitCount == 0 && !negative) {
+                    negative = true;
+                } else if (digitCount > 0 && !closed && !negative) {
+                    negative = true; // trailing minus, e.g. "123.45-"
+                    closed = true;
+                } else {
+                    throw invalid(text);
+                }
+            } else if (c == '(') {
+                if (digitCount > 0 || openParen || parenthesised || negative) {
+                    throw invalid(text); // "-(5)"
+                }
+                openParen = true;
+            } else if (c == ')') {
+                if (!openParen || digitCount == 0) {
+                    throw invalid(text);
+                }
+                openParen = false;
+                parenthesised = true;
+                negative = true;
+                closed = true;
+            } else if ((c == 'e' || c == 'E') && digitCount > 0 && !closed && isExponent(text, i + 1)) {
+                exponentStart = i + 1;
+                break;
+            }
+            // Anything else (currency symbols and codes, spaces, apostrophes) is ignored
+        }
+
+        if (openParen) {
+            throw invalid(text);
+        }
+        if (digitCount == 0) {
+            return BLANK;
+        }
+
+        int fractionDigits = 0;
+        if (dotCount > 0 || commaCount > 0) {
+            int fits;
+            if (dotCount > 0 && commaCount > 0) {
+                // Both present: whichever comes last is the decimal separator and may appear once,
+                // and the other one must group the digits before it
+                if (lastDot == lastComma) {
+                    throw invalid(text);
+                }
+                boolean commaLast = lastComma > lastDot;
+                boolean grouped = commaLast
+                    ? commaCount == 1 && groups(leadingZero, firstDot, lastDot, dotGroups, lastComma)
+                    : dotCount == 1 && groups(leadingZero, firstComma, lastComma, commaGroups, lastDot);
+                if (!grouped) {
+                    throw invalid(text);
+                }
+                fits = commaLast ? COMMA : DOT;
+            } else if (dotCount > 0) {
+                fits = (dotCount == 1 ? DOT : 0)
+                    | (groups(leadingZero, firstDot, lastDot, dotGroups, digitCount) ? COMMA : 0);
+            } else {
+                fits = (commaCount == 1 ? COMMA : 0)
+                    | (groups(leadingZero, firstComma, lastComma, commaGroups, digitCount) ? DOT : 0);
+            }
+            if (fits == 0) {
+                throw invalid(text);
+            }
+
+            int readAs = fits != BOTH ? fits : Integer.lowestOneBit(candidates);
+            sample(fits, readAs);
+            if (readAs == DOT && dotCount > 0) {
+                fractionDigits = digitCount - lastDot;
+            } else if (readAs == COMMA && commaCount > 0) {
+                fractionDigits = digitCount - lastComma;
+            }
+        }
+
+        // Scaled up to minor units the digits must still fit in a long, which any 18 digits do
+        if (exponentStart < 0 && fractionDigits <= MINOR_UNIT_SCALE
+                && digitCount + MINOR_UNIT_SCALE - fractionDigits <= MAX_LONG_DIGITS) {
+            long units = digits * POWERS_OF_TEN[MINOR_UNIT_SCALE - fractionDigits];
+            minorUnits = negative ? -units : units;
+            return MINOR_UNITS;
+        }
+
+        // Slow path: more precision than minor units, very long numbers or an exponent
+        int scale = fractionDigits - (exponentStart >= 0 ? exponent(text, exponentStart) : 0);
+        BigInteger unscaled = digitCount <= MAX_LONG_DIGITS ? BigInteger.valueOf(digits) : allDigits(text, exponentStart);
+        decimal = new BigDecimal(negative ? unscaled.negate() : unscaled, scale);
+        return DECIMAL;
+    }
+
+    /**
+     * Parses a value straight to a BigDecimal, or null if it is blank
+     */
+    public BigDecimal parseDecimal(CharSequence text) {
+        return switch (parse(text)) {
+            case MINOR_UNITS -> BigDecimal.valueOf(minorUnits, MINOR_UNIT_SCALE);
+            case DECIMAL -> decimal;
+            default -> null;
+        };
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal getDecimal() {
+        return decimal;
+    }
+
+    /**
+     * Decimal separator the column was resolved to, or null while it is still being sampled
+     */
+    public DecimalSeparator getDecimalSeparator() {
+        return separator;
+    }
+
+    /**
+     * Whether the column was resolved to decimal commas
+     */
+    public boolean isDecimalComma() {
+        return separator == DecimalSeparator.COMMA;
+    }
+
+    /**
+     * Whether values of the column were, or may have been, read with different decimal separators
+     */
+    public boolean isAmbiguous() {
+        if (separator != null) {
+            return ambiguous;
+        }
+        return sampled > 0 && candidates == BOTH;
+    }
+
+    /**
+     * Narrows the column's candidate separators with a value that fits the given ones and was
+     * read with the separator given
+     */
+    private void sample(int fits, int readAs) {
+        if ((candidates & fits) == 0) {
+            // Only fits the separator the column was not resolved to
+            ambiguous = true;
+            return;
+        }
+        if (separator != null) {
+            return;
+        }
+        if (fits == BOTH && readAs == DOT) {
+            readWithDotWhileSampling = true;
+        }
+        candidates &= fits;
+        if (++sampled >= sampleSize || Integer.bitCount(candidates) == 1) {
+            separator = candidates == COMMA ? DecimalSeparator.COMMA : DecimalSeparator.DOT;
+            ambiguous = candidates == BOTH || (separator == DecimalSeparator.COMMA && readWithDotWhileSampling);
+            candidates = separator.bit();
+        }
+    }
+
+    /**
+     * Whether separators first and last seen after the given numbers of digits, and the given
+     * number of digits apart from each other, group the first {@code end} digits by thousands
+     */
+    private static boolean groups(boolean leadingZero, int first, int last, boolean evenlySpaced, int end) {
+        return !leadingZero && first >= 1 && first <= GROUP_DIGITS && evenlySpaced && end - last == GROUP_DIGITS;
+    }
+
+    private static boolean isExponent(CharSequence text, int from) {
+        int i = from;
+        if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            i++;
+        }
+        return i < text.length() && Character.isDigit(text.charAt(i));
+    }
+
+    private static int exponent(CharSequence text, int from) {
+        int i = from;
+        boolean negative = false;
+        if (text.charAt(i) == '+' || text.charAt(i) == '-') {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        int value = 0;
+        for (; i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+            if (value > 9999) {
+                throw invalid(text);
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static BigInteger allDigits(CharSequence text, int exponentStart) {
+        int end = exponentStart >= 0 ? exponentStart - 1 : text.length();
+        StringBuilder digits = new StringBuilder(end);
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return new BigInteger(digits.toString());
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Unable to parse amount: " + text);
+    }
+}
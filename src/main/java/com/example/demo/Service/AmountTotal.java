@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Exact running total of amounts.
+ * Amounts with at most two decimals are summed as minor units in a long; amounts with more
+ * decimals, and the long total whenever it would overflow, are carried in a BigDecimal.
+ */
+public final class AmountTotal {
+
+    private static final int SCALE = AmountColumnParser.MINOR_UNIT_SCALE;
+
+    private long minorUnits;
+    private BigDecimal overflow = BigDecimal.ZERO;
+
+    public void add(BigDecimal amount) {
+        if (amount.scale() >= 0 && amount.scale() <= SCALE) {
+            BigInteger unscaled = amount.setScale(SCALE).unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                addMinorUnits(unscaled.longValue());
+                return;
+            }
+        }
+        overflow = overflow.add(amount);
+    }
+
+    public void addMinorUnits(long units) {
+        long sum = minorUnits + units;
+        if (((minorUnits ^ sum) & (units ^ sum)) < 0) {
+            overflow = overflow.add(BigDecimal.valueOf(minorUnits, SCALE));
+            sum = units;
+        }
+        minorUnits = sum;
+    }
+
+    public void add(AmountTotal other) {
+        addMinorUnits(other.minorUnits);
+        overflow = overflow.add(other.overflow);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE).add(overflow);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+/**
+ * Records that can be read back as columnar {@link RecordBatch}es
+ */
+public interface BatchedRecords {
+
+    /**
+     * Batches in record order. Each call starts a new pass over the records.
+     */
+    Iterable<RecordBatch> batches();
+
+    /**
+     * Names of all fields present in at least one record, in first-seen order
+     */
+    List<String> getFieldNames();
+}
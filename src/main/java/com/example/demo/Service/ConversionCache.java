@@ -0,0 +1,329 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CacheStatistics;
+import com.example.demo.dto.ReportOptions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache of rendered markdown reports, keyed by the SHA-256 of the upload together with the file
+ * name and report options that the report depends on.
+ * Reports are kept in a size-bounded in-memory tier (Caffeine, W-TinyLFU eviction) and, if a
+ * directory is configured, in an on-disk tier with least-recently-used eviction that survives
+ * restarts. Reports larger than the maximum entry size are not cached.
+ * Its statistics are bound to the meter registry as the {@code conversion-reports} cache.
+ */
+@Slf4j
+@Service
+public class ConversionCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "conversion-reports";
+
+    // Part of every key, so that cached reports are dropped when the report format changes
+    private static final String FORMAT_VERSION = "6";
+    private static final String DISK_SUFFIX = ".md";
+
+    private final boolean enabled;
+    private final int maxEntryBytes;
+    private final Cache<String, byte[]> memory;
+    private final Path diskDirectory;
+    private final long diskMaxBytes;
+    // Disk entry sizes in access order; guarded by itself
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    @Autowired
+    public ConversionCache(
+            @Value("${financial-data.cache.enabled:true}") boolean enabled,
+            @Value("${financial-data.cache.memory-max-size:64MB}") DataSize memoryMaxSize,
+            @Value("${financial-data.cache.max-entry-size:8MB}") DataSize maxEntrySize,
+            @Value("${financial-data.cache.disk-dir:}") String diskDirectory,
+            @Value("${financial-data.cache.disk-max-size:512MB}") DataSize diskMaxSize) {
+        this.enabled = enabled;
+        this.maxEntryBytes = (int) Math.min(maxEntrySize.toBytes(), Integer.MAX_VALUE - 8);
+        this.memory = Caffeine.newBuilder()
+            .maximumWeight(memoryMaxSize.toBytes())
+            .weigher((String key, byte[] report) -> report.length)
+            .recordStats()
+            .build();
+        this.diskDirectory = enabled && !diskDirectory.isBlank() ? Paths.get(diskDirectory) : null;
+        this.diskMaxBytes = diskMaxSize.toBytes();
+        if (this.diskDirectory != null) {
+            loadDiskIndex();
+        }
+    }
+
+    /**
+     * Cache key of a report: the upload's content hash, plus everything else the report shows
+     */
+    public static String key(String contentHash, String filename, ReportOptions options) {
+        String key = String.join("\n", FORMAT_VERSION, contentHash, filename,
+            options.getProfile().name(), String.valueOf(options.getLimit()),
+            String.valueOf(options.getPage()), String.valueOf(options.getPageSize()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached report, or null on a miss. A report found on disk is promoted to memory.
+     */
+    public byte[] get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        byte[] report = memory.getIfPresent(key);
+        if (report != null && diskDirectory != null) {
+            // Keeps the disk tier's recency in step with the memory tier
+            synchronized (diskIndex) {
+                diskIndex.get(key);
+            }
+        } else if (report == null && diskDirectory != null) {
+            report = readFromDisk(key);
+            if (report != null) {
+                diskHits.incrementAndGet();
+                memory.put(key, report);
+            }
+        }
+        if (report == null) {
+            misses.incrementAndGet();
+        }
+        return report;
+    }
+
+    public void put(String key, byte[] report) {
+        if (!enabled || report.length > maxEntryBytes) {
+            return;
+        }
+        memory.put(key, report);
+        if (diskDirectory != null) {
+            writeToDisk(key, report);
+        }
+    }
+
+    /**
+     * Passes a report through to the output and caches a copy of it once it is complete.
+     * Recording stops, and nothing is cached, when the report outgrows the maximum entry size.
+     */
+    public Recording record(String key, OutputStream out) {
+        return new Recording(key, out);
+    }
+
+    public CacheStatistics getStatistics() {
+        CacheStats stats = memory.stats();
+        long hits = stats.hitCount() + diskHits.get();
+        long lookups = hits + misses.get();
+        long diskEntries;
+        long diskSize;
+        synchronized (diskIndex) {
+            diskEntries = diskIndex.size();
+            diskSize = diskBytes;
+        }
+        return CacheStatistics.builder()
+            .enabled(enabled)
+            .memoryHits(stats.hitCount())
+            .diskHits(diskHits.get())
+            .misses(misses.get())
+            .hitRate(lookups == 0 ? 0.0 : (double) hits / lookups)
+            .memoryEntries(memory.estimatedSize())
+            .memoryBytes(memory.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+            .memoryEvictions(stats.evictionCount())
+            .diskEnabled(diskDirectory != null)
+            .diskEntries(diskEntries)
+            .diskBytes(diskSize)
+            .diskEvictions(diskEvictions.get())
+            .build();
+    }
+
+    /**
+     * Binds the memory tier's Caffeine statistics and the disk tier's counters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, memory, CACHE_NAME);
+        FunctionCounter.builder("conversion.cache.disk.hits", diskHits, AtomicLong::get)
+            .description("Reports found in the disk tier after missing the memory tier")
+            .register(registry);
+        FunctionCounter.builder("conversion.cache.misses", misses, AtomicLong::get)
+            .description("Reports found in neither tier")
+            .register(registry);
+        FunctionCounter.builder("conversion.cache.disk.evictions", diskEvictions, AtomicLong::get)
+            .description("Reports evicted from the disk tier")
+            .register(registry);
+        Gauge.builder("conversion.cache.disk.size", this, cache -> cache.getStatistics().getDiskBytes())
+            .description("Bytes of reports in the disk tier")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    private void loadDiskIndex() {
+        try {
+            Files.createDirectories(diskDirectory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(diskDirectory)) {
+                files = listing.filter(path -> path.getFileName().toString().endsWith(DISK_SUFFIX))
+                    .sorted(Comparator.comparing(path -> path.toFile().lastModified()))
+                    .toList();
+            }
+            synchronized (diskIndex) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    long size = Files.size(file);
+                    diskIndex.put(name.substring(0, name.length() - DISK_SUFFIX.length()), size);
+                    diskBytes += size;
+                }
+                evictFromDisk();
+            }
+            log.info("Conversion cache on disk at {} with {} reports", diskDirectory, files.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open conversion cache directory " + diskDirectory, e);
+        }
+    }
+
+    private byte[] readFromDisk(String key) {
+        synchronized (diskIndex) {
+            if (diskIndex.get(key) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.readAllBytes(diskPath(key));
+        } catch (IOException e) {
+            log.warn("Could not read cached report {}: {}", key, e.getMessage());
+            synchronized (diskIndex) {
+                Long size = diskIndex.remove(key);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] report) {
+        try {
+            Path temp = Files.createTempFile(diskDirectory, key, ".tmp");
+            Files.write(temp, report);
+            Files.move(temp, diskPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write cached report {}: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (diskIndex) {
+            Long previous = diskIndex.put(key, (long) report.length);
+            diskBytes += report.length - (previous != null ? previous : 0);
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * Deletes least recently used reports until the disk tier fits its size; the caller holds the index lock
+     */
+    private void evictFromDisk() {
+        Iterator<Map.Entry<String, Long>> eldest = diskIndex.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(diskPath(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Could not delete cached report {}: {}", entry.getKey(), e.getMessage());
+            }
+            diskBytes -= entry.getValue();
+            eldest.remove();
+            diskEvictions.incrementAndGet();
+        }
+    }
+
+    private Path diskPath(String key) {
+        return diskDirectory.resolve(key + DISK_SUFFIX);
+    }
+
+    /**
+     * Output stream that copies what passes through it for the cache
+     */
+    public final class Recording extends FilterOutputStream {
+        private final String key;
+        private ByteArrayOutputStream copy;
+
+        private Recording(String key, OutputStream out) {
+            super(out);
+            this.key = key;
+            this.copy = enabled && key != null ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkSize();
+            }
+        }
+
+        /**
+         * Caches the recorded report; call once it has been written in full
+         */
+        public void complete() {
+            if (copy != null) {
+                put(key, copy.toByteArray());
+                copy = null;
+            }
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxEntryBytes) {
+                copy = null;
+            }
+        }
+    }
+}
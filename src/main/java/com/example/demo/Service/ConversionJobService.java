@@ -0,0 +1,279 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ConversionJobStatus;
+import com.example.demo.dto.ReportOptions;
+import com.example.demo.exception.JobNotFoundException;
+import com.example.demo.exception.JobNotReadyException;
+import com.example.demo.exception.JobQueueFullException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Asynchronous conversion jobs. An upload is copied and queued on the bounded job executor, so the
+ * request returns at once; a worker parses it and renders the report to a temp file, which can be
+ * downloaded until it expires. Jobs and their results are kept in memory and on local disk only.
+ */
+@Slf4j
+@Service
+public class ConversionJobService {
+
+    private static final int RESULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ConversionService conversionService;
+    private final ConversionCache conversionCache;
+    private final ThreadPoolExecutor conversionJobExecutor;
+    private final Duration resultTimeToLive;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConversionJobService(
+            ConversionService conversionService,
+            ConversionCache conversionCache,
+            @Qualifier("conversionJobExecutor") ThreadPoolExecutor conversionJobExecutor,
+            @Value("${financial-data.jobs.result-ttl:30m}") Duration resultTimeToLive) {
+        this.conversionService = conversionService;
+        this.conversionCache = conversionCache;
+        this.conversionJobExecutor = conversionJobExecutor;
+        this.resultTimeToLive = resultTimeToLive;
+    }
+
+    /**
+     * Queues a conversion of the file
+     *
+     * @throws JobQueueFullException if the job queue has no room
+     */
+    public ConversionJobStatus submit(MultipartFile file, String filename, ReportOptions options) {
+        // The multipart file is gone once the request ends, so the job works on its own copy
+        HashedUpload upload = HashedUpload.copyOf(file);
+        Job job = new Job(UUID.randomUUID().toString(), filename, options, upload);
+        jobs.put(job.id, job);
+        try {
+            conversionJobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            upload.close();
+            throw new JobQueueFullException("The conversion job queue is full; retry later", e);
+        }
+        log.info("Queued conversion job {} for file: {}", job.id, filename);
+        return job.status();
+    }
+
+    public ConversionJobStatus getStatus(String id) {
+        return find(id).status();
+    }
+
+    /**
+     * Opens the rendered report of a completed job. The job is kept past its expiry until the stream
+     * is closed, so a download that has started is not cut short by the sweeper.
+     *
+     * @throws JobNotReadyException if the job has not completed successfully
+     */
+    public InputStream openResult(String id) throws IOException {
+        Job job = find(id);
+        synchronized (job) {
+            if (job.state == ConversionJobStatus.State.FAILED) {
+                throw new JobNotReadyException("Job " + id + " failed: " + job.errorMessage);
+            }
+            if (job.state != ConversionJobStatus.State.COMPLETED) {
+                throw new JobNotReadyException("Job " + id + " is " + job.state.name().toLowerCase(Locale.ROOT));
+            }
+            if (job.removed) {
+                throw new JobNotFoundException("No conversion job " + id + "; it may have expired");
+            }
+            InputStream in = Files.newInputStream(job.result);
+            job.downloads++;
+            return new FilterInputStream(in) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        synchronized (job) {
+                            job.downloads--;
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    public String getFilename(String id) {
+        return find(id).filename;
+    }
+
+    @Scheduled(fixedDelayString = "${financial-data.jobs.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        removeExpired(Instant.now());
+    }
+
+    /**
+     * Removes finished jobs whose results expired before the given time and deletes their results.
+     * Jobs whose result is being downloaded are left for a later sweep.
+     */
+    void removeExpired(Instant now) {
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                Instant expiresAt = job.expiresAt;
+                if (expiresAt == null || expiresAt.isAfter(now) || job.downloads > 0) {
+                    return false;
+                }
+                job.removed = true;
+            }
+            deleteResult(job);
+            log.info("Conversion job {} expired", job.id);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    void deleteResults() {
+        jobs.values().forEach(this::deleteResult);
+        jobs.clear();
+    }
+
+    private Job find(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new JobNotFoundException("No conversion job " + id + "; it may have expired");
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        job.startedAt = Instant.now();
+        job.state = ConversionJobStatus.State.RUNNING;
+        Path result = null;
+        try {
+            result = Files.createTempFile("conversion-job-", ".md");
+            String cacheKey = conversionCache.isEnabled()
+                ? ConversionCache.key(job.upload.getContentHash(), job.filename, job.options) : null;
+            byte[] cached = cacheKey != null ? conversionCache.get(cacheKey) : null;
+            if (cached != null) {
+                Files.write(result, cached);
+            } else {
+                render(job, cacheKey, result);
+            }
+            job.result = result;
+            job.resultSize = Files.size(result);
+            finish(job, ConversionJobStatus.State.COMPLETED);
+            log.info("Conversion job {} completed with {} records", job.id, job.progress.getRecordsParsed());
+        } catch (Throwable e) {
+            // Errors too: a job left running would never expire
+            log.error("Conversion job {} failed: {}", job.id, e.getMessage(), e);
+            deleteQuietly(result);
+            job.errorMessage = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            finish(job, ConversionJobStatus.State.FAILED);
+        } finally {
+            job.upload.close();
+        }
+    }
+
+    private void finish(Job job, ConversionJobStatus.State state) {
+        job.completedAt = Instant.now();
+        job.expiresAt = job.completedAt.plus(resultTimeToLive);
+        // Published last, so that a finished state is always seen with its times
+        job.state = state;
+    }
+
+    private void render(Job job, String cacheKey, Path result) throws IOException {
+        try (ConversionService.PreparedReport report =
+                 conversionService.prepare(job.upload, job.filename, job.options, job.progress)) {
+            // The parsers are done with the upload copy; the report is rendered from the spool
+            job.upload.close();
+            try (OutputStream out = Files.newOutputStream(result)) {
+                ConversionCache.Recording recording = conversionCache.record(cacheKey, out);
+                report.writeTo(recording, RESULT_BUFFER_SIZE);
+                recording.complete();
+            }
+        }
+    }
+
+    private void deleteResult(Job job) {
+        deleteQuietly(job.result);
+        job.upload.close();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete job result {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * A queued, running or finished conversion; fields are written by the worker and read by requests
+     */
+    private static final class Job {
+        private final String id;
+        private final String filename;
+        private final ReportOptions options;
+        private final HashedUpload upload;
+        private final ConversionProgress progress = new ConversionProgress();
+        private final Instant submittedAt = Instant.now();
+        private volatile ConversionJobStatus.State state = ConversionJobStatus.State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant completedAt;
+        private volatile Instant expiresAt;
+        private volatile Path result;
+        private volatile Long resultSize;
+        private volatile String errorMessage;
+        // Guarded by the job: open result streams, and whether the sweeper has removed the job
+        private int downloads;
+        private boolean removed;
+
+        private Job(String id, String filename, ReportOptions options, HashedUpload upload) {
+            this.id = id;
+            this.filename = filename;
+            this.options = options;
+            this.upload = upload;
+        }
+
+        private ConversionJobStatus status() {
+            return ConversionJobStatus.builder()
+                .id(id)
+                .filename(filename)
+                .state(state)
+                .totalFiles(progress.getTotalFiles())
+                .filesDone(progress.getFilesDone())
+                .recordsParsed(progress.getRecordsParsed())
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .completedAt(completedAt)
+                .expiresAt(expiresAt)
+                .resultSize(resultSize)
+                .errorMessage(errorMessage)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ColumnParseFailures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters of the conversion pipeline: a latency histogram per stage and file format,
+ * records parsed, bytes read and cells that could not be parsed per format, report bytes written,
+ * ZIP entries by outcome, failures by exception type and the number of conversions in flight.
+ * Records per second is the rate of the records counter.
+ */
+@Component
+public class ConversionMetrics {
+
+    /**
+     * Timed stages of a conversion. Records are bound and aggregated as they are parsed, so that
+     * work is part of the parse stage.
+     */
+    public enum Stage {
+        /** Waiting for a thread of the conversion executor */
+        QUEUE,
+        /** Detecting the file type from the first bytes of the upload */
+        DETECT,
+        /** A whole ZIP archive, from opening it until every entry is parsed and merged */
+        UNZIP,
+        /** Parsing one file, or one ZIP entry, into bound records */
+        PARSE,
+        /** Rendering the markdown report from the parsed records */
+        RENDER;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * Name of the stage in meter tags and timing headers
+         */
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final String NO_FORMAT = "none";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Autowired
+    public ConversionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("conversion.in.flight", inFlight, AtomicInteger::get)
+            .description("Conversions being parsed or rendered")
+            .register(registry);
+    }
+
+    /**
+     * Meters kept in a registry of their own, for conversions that are not exported
+     */
+    public static ConversionMetrics unregistered() {
+        return new ConversionMetrics(new SimpleMeterRegistry());
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records the time of a stage started with {@link #start()}; the file type may be null
+     *
+     * @return the stage's duration in nanoseconds
+     */
+    public long stop(Timer.Sample sample, Stage stage, FileTypeDetector.FileType fileType) {
+        return sample.stop(Timer.builder("conversion.stage")
+            .description("Time spent in each stage of a conversion")
+            .tag("stage", stage.tag)
+            .tag("format", format(fileType))
+            .publishPercentileHistogram()
+            .register(registry));
+    }
+
+    /**
+     * Counts the bytes and records of a parsed file
+     */
+    public void parsed(FileTypeDetector.FileType fileType, long bytes, long records) {
+        String format = format(fileType);
+        DistributionSummary.builder("conversion.bytes.in")
+            .description("Size of the parsed files")
+            .baseUnit("bytes")
+            .tag("format", format)
+            .register(registry)
+            .record(bytes);
+        Counter.builder("conversion.records")
+            .description("Records parsed")
+            .tag("format", format)
+            .register(registry)
+            .increment(records);
+    }
+
+    /**
+     * Counts the date or amount cells of a parsed file that could not be parsed. Columns are not a
+     * tag, as their names come from the files; the report and diagnostics name them.
+     */
+    public void parseFailures(FileTypeDetector.FileType fileType, ColumnParseFailures.Kind kind, long cells) {
+        if (cells == 0) {
+            return;
+        }
+        Counter.builder("conversion.parse.failures")
+            .description("Date and amount cells that could not be parsed")
+            .tag("format", format(fileType))
+            .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+            .register(registry)
+            .increment(cells);
+    }
+
+    public void zipEntry(boolean processed) {
+        Counter.builder("conversion.zip.entries")
+            .description("ZIP entries by outcome")
+            .tag("outcome", processed ? "processed" : "failed")
+            .register(registry)
+            .increment();
+    }
+
+    public void failure(Stage stage, Throwable e) {
+        Counter.builder("conversion.failures")
+            .description("Failed conversions by stage and exception type")
+            .tag("stage", stage.tag)
+            .tag("exception", e.getClass().getSimpleName())
+            .register(registry)
+            .increment();
+    }
+
+    public void conversionStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void conversionFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Stream that counts the report bytes written through it; {@link CountingOutputStream#done()} records them
+     */
+    CountingOutputStream countBytesOut(OutputStream out) {
+        return new CountingOutputStream(out);
+    }
+
+    private static String format(FileTypeDetector.FileType fileType) {
+        return fileType != null ? fileType.name().toLowerCase(Locale.ROOT) : NO_FORMAT;
+    }
+
+    /**
+     * Output stream that counts the bytes passing through it and records them as one report
+     */
+    final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+        private boolean recorded;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        /**
+         * Records the bytes written so far as the size of one report, without closing the stream
+         */
+        void done() {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            DistributionSummary.builder("conversion.bytes.out")
+                .description("Size of the rendered reports")
+                .baseUnit("bytes")
+                .register(registry)
+                .record(count);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress counters of one conversion, updated by the threads that parse it and read by others.
+ * As a sink it counts the records and rows that pass through it.
+ */
+public class ConversionProgress implements FinancialRecordSink {
+
+    private final AtomicInteger totalFiles = new AtomicInteger();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicLong recordsParsed = new AtomicLong();
+
+    @Override
+    public void accept(FinancialDataRecord record) {
+        recordsParsed.incrementAndGet();
+    }
+
+    @Override
+    public void acceptRow(RecordRow row) {
+        recordsParsed.incrementAndGet();
+    }
+
+    void fileFound() {
+        totalFiles.incrementAndGet();
+    }
+
+    void fileDone() {
+        filesDone.incrementAndGet();
+    }
+
+    public int getTotalFiles() {
+        return totalFiles.get();
+    }
+
+    public int getFilesDone() {
+        return filesDone.get();
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed.get();
+    }
+}
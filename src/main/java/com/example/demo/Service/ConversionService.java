@@ -0,0 +1,272 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ConversionDiagnostics;
+import com.example.demo.dto.MarkdownResponse;
+import com.example.demo.dto.ParseDiagnostics;
+import com.example.demo.dto.ReportOptions;
+import com.example.demo.dto.ZipProcessingResult;
+import com.example.demo.exception.ConversionBusyException;
+import com.example.demo.exception.FileProcessingException;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Parses an upload into a report that is ready to be rendered.
+ * Shared by the synchronous conversion endpoint and the conversion jobs.
+ */
+@Slf4j
+@Service
+public class ConversionService {
+
+    private final FinancialDataService financialDataService;
+    private final MarkdownConverterService markdownConverterService;
+    private final FileTypeDetector fileTypeDetector;
+    private final ThreadPoolExecutor conversionExecutor;
+    private final ConversionMetrics metrics;
+
+    @Autowired
+    public ConversionService(
+            FinancialDataService financialDataService,
+            MarkdownConverterService markdownConverterService,
+            FileTypeDetector fileTypeDetector,
+            @Qualifier("conversionExecutor") ThreadPoolExecutor conversionExecutor,
+            ConversionMetrics metrics) {
+        this.financialDataService = financialDataService;
+        this.markdownConverterService = markdownConverterService;
+        this.fileTypeDetector = fileTypeDetector;
+        this.conversionExecutor = conversionExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Prepares the report on the bounded conversion executor and waits for it. Request threads
+     * use this, so that parsing competes for the conversion threads rather than for the CPU.
+     *
+     * @throws ConversionBusyException if every conversion thread is busy and the queue is full
+     */
+    public PreparedReport prepareOnExecutor(MultipartFile file, String filename, ReportOptions options,
+                                            ConversionProgress progress) {
+        ConversionDiagnostics diagnostics = new ConversionDiagnostics();
+        Timer.Sample queued = metrics.start();
+        CompletableFuture<PreparedReport> pending;
+        try {
+            pending = CompletableFuture.supplyAsync(() -> {
+                recordStage(diagnostics, ConversionMetrics.Stage.QUEUE,
+                    metrics.stop(queued, ConversionMetrics.Stage.QUEUE, null));
+                return prepare(file, filename, options, progress, diagnostics);
+            }, conversionExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new ConversionBusyException("Too many conversions in progress; retry later", e);
+        }
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Nobody will render the report, so release its records once it is prepared
+            pending.thenAccept(PreparedReport::close);
+            throw new FileProcessingException("Conversion of " + filename + " was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new FileProcessingException("Error processing file: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Parses the file on the calling thread, spooling its records to disk, and returns the report
+     * to render from them. The file is no longer needed once this returns. Conversion jobs call this
+     * directly, as their own worker pool already bounds them.
+     */
+    public PreparedReport prepare(MultipartFile file, String filename, ReportOptions options,
+                                  ConversionProgress progress) {
+        return prepare(file, filename, options, progress, new ConversionDiagnostics());
+    }
+
+    private PreparedReport prepare(MultipartFile file, String filename, ReportOptions options,
+                                   ConversionProgress progress, ConversionDiagnostics diagnostics) {
+        // Records are spooled to disk as they are parsed and replayed by the renderer.
+        // The spool is released when the prepared report is closed.
+        RecordSpool records = new RecordSpool();
+        // In flight until the prepared report is closed
+        metrics.conversionStarted();
+        FileTypeDetector.FileType fileType = null;
+        // Until the report owns the spool and the in-flight count, they are released here
+        boolean prepared = false;
+        try {
+            // Detected once from the first bytes and passed on, so the upload is not sniffed again
+            Timer.Sample detection = metrics.start();
+            try {
+                fileType = fileTypeDetector.detectFileType(file);
+            } finally {
+                recordStage(diagnostics, ConversionMetrics.Stage.DETECT,
+                    metrics.stop(detection, ConversionMetrics.Stage.DETECT, fileType));
+            }
+
+            long started = System.nanoTime();
+            if (fileType == FileTypeDetector.FileType.ZIP) {
+                // Process ZIP file
+                ZipProcessingResult zipResult = financialDataService.processZipFile(file, records, progress);
+                zipResult.setAllRecords(records);
+                recordStage(diagnostics, ConversionMetrics.Stage.UNZIP, System.nanoTime() - started);
+                zipResult.getFileInfos().forEach(fileInfo -> diagnostics.getParsing().add(fileInfo.getDiagnostics()));
+
+                log.info("Successfully processed ZIP file: {} with {} files and {} total records",
+                    filename, zipResult.getTotalFiles(), records.size());
+                PreparedReport report = new PreparedReport(records, fileType, zipResult, metrics, diagnostics,
+                    writer -> markdownConverterService.writeZipMarkdown(zipResult, filename, options, writer));
+                prepared = true;
+                return report;
+            }
+
+            // Process single file, aggregating the summary metrics as records are parsed
+            progress.fileFound();
+            SummaryAggregator summary = new SummaryAggregator();
+            financialDataService.streamFile(file, fileType, records.andThen(summary).andThen(progress),
+                diagnostics.getParsing());
+            progress.fileDone();
+            recordStage(diagnostics, ConversionMetrics.Stage.PARSE, System.nanoTime() - started);
+
+            log.info("Successfully processed file: {} with {} records", filename, records.size());
+            PreparedReport report = new PreparedReport(records, fileType, null, metrics, diagnostics,
+                writer -> markdownConverterService.writeMarkdown(records, summary, diagnostics.getParsing(), filename,
+                    options, writer));
+            prepared = true;
+            return report;
+        } catch (RuntimeException | Error e) {
+            metrics.failure(fileType == null ? ConversionMetrics.Stage.DETECT
+                : fileType == FileTypeDetector.FileType.ZIP ? ConversionMetrics.Stage.UNZIP
+                : ConversionMetrics.Stage.PARSE, e);
+            throw e;
+        } finally {
+            if (!prepared) {
+                metrics.conversionFinished();
+                records.close();
+            }
+        }
+    }
+
+    private static void recordStage(ConversionDiagnostics diagnostics, ConversionMetrics.Stage stage, long nanos) {
+        diagnostics.getStageMillis().put(stage.tag(), nanos / 1_000_000.0);
+    }
+
+    /**
+     * A parsed upload whose report can be rendered; closing it releases the spooled records
+     */
+    public static final class PreparedReport implements Closeable {
+        private final RecordSpool records;
+        private final FileTypeDetector.FileType fileType;
+        private final ZipProcessingResult zipResult;
+        private final ConversionMetrics metrics;
+        private final ConversionDiagnostics diagnostics;
+        private final Renderer renderer;
+        private boolean closed;
+
+        private PreparedReport(RecordSpool records, FileTypeDetector.FileType fileType, ZipProcessingResult zipResult,
+                               ConversionMetrics metrics, ConversionDiagnostics diagnostics, Renderer renderer) {
+            this.records = records;
+            this.fileType = fileType;
+            this.zipResult = zipResult;
+            this.metrics = metrics;
+            this.diagnostics = diagnostics;
+            this.renderer = renderer;
+        }
+
+        public int getRecordCount() {
+            return records.size();
+        }
+
+        /**
+         * Stage timings and parse counts so far; the render stage is there once the report is rendered
+         */
+        public ConversionDiagnostics getDiagnostics() {
+            ParseDiagnostics parsing = diagnostics.getParsing();
+            parsing.setPeakBufferedBytes(Math.max(parsing.getPeakBufferedBytes(), records.getPeakBatchBytes()));
+            return diagnostics;
+        }
+
+        /**
+         * Response describing the converted file, with its rendered report and the diagnostics
+         */
+        public MarkdownResponse toResponse(String filename, String markdown) {
+            MarkdownResponse.MarkdownResponseBuilder response = MarkdownResponse.builder()
+                .markdown(markdown)
+                .filename(filename)
+                .recordCount(records.size())
+                .processedAt(LocalDateTime.now())
+                .fileType(fileType.name())
+                .status("success")
+                .isZipArchive(zipResult != null)
+                .diagnostics(getDiagnostics());
+            if (zipResult != null) {
+                response.zipFileContents(zipResult.getFileInfos())
+                    .totalFilesInZip(zipResult.getTotalFiles())
+                    .successfullyProcessedFiles(zipResult.getSuccessfullyProcessedFiles());
+            }
+            return response.build();
+        }
+
+        public void render(Writer writer) throws IOException {
+            Timer.Sample sample = metrics.start();
+            try {
+                renderer.render(writer);
+            } catch (IOException | RuntimeException e) {
+                metrics.failure(ConversionMetrics.Stage.RENDER, e);
+                throw e;
+            } finally {
+                recordStage(diagnostics, ConversionMetrics.Stage.RENDER,
+                    metrics.stop(sample, ConversionMetrics.Stage.RENDER, fileType));
+            }
+        }
+
+        /**
+         * Renders the report to the stream as UTF-8 through a buffer of the given size, counting the
+         * bytes written, and flushes it
+         */
+        public void writeTo(OutputStream out, int bufferSize) throws IOException {
+            ConversionMetrics.CountingOutputStream counted = metrics.countBytesOut(out);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(counted, StandardCharsets.UTF_8), bufferSize);
+            render(writer);
+            writer.flush();
+            counted.done();
+        }
+
+        @Override
+        public void close() {
+            records.close();
+            if (!closed) {
+                closed = true;
+                metrics.conversionFinished();
+            }
+        }
+    }
+
+    /**
+     * Writes a markdown report to a writer
+     */
+    @FunctionalInterface
+    private interface Renderer {
+        void render(Writer writer) throws IOException;
+    }
+}
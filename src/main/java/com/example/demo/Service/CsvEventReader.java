@@ -0,0 +1,223 @@
+package com.example.demo.service;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Streaming reader of delimited files that hands the rows to the caller one at a time.
+ * The fast engine tokenizes the UTF-8 bytes directly ({@link CsvTokenizer}) and only decodes the
+ * cells that are read. The OpenCSV engine is kept as a fallback, and also reads UTF-16 files,
+ * which are recognized by their byte order mark. A UTF-8 byte order mark is skipped.
+ * Files of unknown layout can have their delimiter sniffed from their first lines.
+ */
+@Slf4j
+@Component
+public class CsvEventReader {
+
+    private static final int SNIFF_BYTES = 8 * 1024;
+    private static final int SNIFF_LINES = 10;
+    // In order of preference when two candidates fit equally well
+    private static final char[] DELIMITERS = {'\t', ',', '|', ';'};
+
+    /**
+     * Tokenizer behind the reader
+     */
+    public enum Engine {
+        /** Byte-level RFC 4180 tokenizer */
+        FAST,
+        /** OpenCSV, where a backslash also escapes a quote */
+        OPENCSV
+    }
+
+    /**
+     * Receives the rows in file order, the header row first
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(CsvRow row);
+    }
+
+    private final Engine engine;
+
+    @Autowired
+    public CsvEventReader(@Value("${financial-data.csv.engine:fast}") String engine) {
+        this(Engine.valueOf(engine.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public CsvEventReader(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Reads a comma-separated file
+     *
+     * @return number of rows read, including the header row
+     */
+    public int read(InputStream in, RowHandler handler) throws IOException {
+        return read(in, ',', handler);
+    }
+
+    /**
+     * Reads a file delimited by the given ASCII character
+     *
+     * @return number of rows read, including the header row
+     */
+    public int read(InputStream in, char delimiter, RowHandler handler) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in, 3);
+        byte[] head = input.readNBytes(3);
+        Charset charset = StandardCharsets.UTF_8;
+        int byteOrderMark = 0;
+        if (head.length == 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            byteOrderMark = 3;
+        } else if (head.length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            charset = StandardCharsets.UTF_16BE;
+            byteOrderMark = 2;
+        } else if (head.length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            charset = StandardCharsets.UTF_16LE;
+            byteOrderMark = 2;
+        }
+        input.unread(head, byteOrderMark, head.length - byteOrderMark);
+
+        if (engine == Engine.FAST && charset == StandardCharsets.UTF_8) {
+            CsvTokenizer tokenizer = new CsvTokenizer(input, (byte) delimiter);
+            int rows = 0;
+            while (tokenizer.next()) {
+                handler.row(tokenizer);
+                rows++;
+            }
+            return rows;
+        }
+        return readWithOpenCsv(new InputStreamReader(input, charset), delimiter, handler);
+    }
+
+    /**
+     * Reads a delimited file whose delimiter is sniffed from its first lines
+     *
+     * @return number of rows read, including the header row
+     */
+    public int readSniffed(InputStream in, RowHandler handler) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in, SNIFF_BYTES);
+        byte[] head = input.readNBytes(SNIFF_BYTES);
+        input.unread(head);
+        char delimiter = sniffDelimiter(head, head.length < SNIFF_BYTES);
+        log.debug("Sniffed delimiter {}", delimiter == '\t' ? "\\t" : String.valueOf(delimiter));
+        return read(input, delimiter, handler);
+    }
+
+    /**
+     * Picks the candidate delimiter (tab, comma, pipe or semicolon) that occurs outside quotes on the
+     * header line and as often on every other sampled line, preferring the one that splits the lines
+     * into the most cells. Without such a candidate, the one splitting the header line most wins.
+     *
+     * @param complete whether the sample is the whole file, so that its last line is complete
+     */
+    static char sniffDelimiter(byte[] head, boolean complete) {
+        int[][] counts = new int[DELIMITERS.length][SNIFF_LINES];
+        int lines = 0;
+        boolean quoted = false;
+        boolean lineStarted = false;
+        for (int i = 0; i < head.length && lines < SNIFF_LINES; i++) {
+            byte b = head[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (b == '\n' || b == '\r')) {
+                if (b == '\r' && i + 1 < head.length && head[i + 1] == '\n') {
+                    i++;
+                }
+                lines++;
+                lineStarted = false;
+                continue;
+            } else if (!quoted) {
+                for (int d = 0; d < DELIMITERS.length; d++) {
+                    if (b == DELIMITERS[d]) {
+                        counts[d][lines]++;
+                    }
+                }
+            }
+            lineStarted = true;
+        }
+        // A cut-off last line is only used when it is all there is
+        if (lines < SNIFF_LINES && lineStarted && (complete || lines == 0)) {
+            lines++;
+        }
+
+        int best = 0;
+        int bestCount = 0;
+        boolean bestConsistent = false;
+        for (int d = 0; d < DELIMITERS.length; d++) {
+            int headerCount = counts[d][0];
+            if (headerCount == 0) {
+                continue;
+            }
+            boolean consistent = true;
+            for (int line = 1; line < lines && consistent; line++) {
+                consistent = counts[d][line] == headerCount || isBlank(counts, line);
+            }
+            if ((consistent && !bestConsistent) || (consistent == bestConsistent && headerCount > bestCount)) {
+                best = d;
+                bestCount = headerCount;
+                bestConsistent = consistent;
+            }
+        }
+        return DELIMITERS[best];
+    }
+
+    /**
+     * Whether a sampled line has none of the candidate delimiters, such as an empty line
+     */
+    private static boolean isBlank(int[][] counts, int line) {
+        for (int[] delimiterCounts : counts) {
+            if (delimiterCounts[line] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readWithOpenCsv(InputStreamReader in, char delimiter, RowHandler handler) throws IOException {
+        try (CSVReader reader = new CSVReaderBuilder(in)
+                .withCSVParser(new CSVParserBuilder().withSeparator(delimiter).build())
+                .build()) {
+            ArrayRow row = new ArrayRow();
+            int rows = 0;
+            while ((row.cells = reader.readNext()) != null) {
+                handler.row(row);
+                rows++;
+            }
+            return rows;
+        } catch (CsvValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Row over the cells OpenCSV split
+     */
+    private static final class ArrayRow implements CsvRow {
+        private String[] cells;
+
+        @Override
+        public int size() {
+            return cells.length;
+        }
+
+        @Override
+        public String cell(int column) {
+            return cells[column].trim();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.service;
+
+/**
+ * One row of a delimited file as handed to a {@link CsvEventReader.RowHandler}.
+ * The row is only valid during the callback; the reader reuses it for the next row.
+ */
+public interface CsvRow {
+
+    /**
+     * Number of cells in the row
+     */
+    int size();
+
+    /**
+     * Trimmed value of a cell. Cells are only decoded when asked for.
+     */
+    String cell(int column);
+
+    /**
+     * Trimmed value of a cell as characters, which may be a view of the row that is only valid
+     * until the next call. Lets a cell be parsed without decoding it into a String.
+     */
+    default CharSequence chars(int column) {
+        return cell(column);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileProcessingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 tokenizer over the bytes of a UTF-8 file.
+ * The delimiter, the quote and line breaks are ASCII bytes, which never occur inside a multi-byte
+ * UTF-8 sequence, so rows are split on the raw bytes and a cell is only decoded when it is read.
+ * Quoted cells may contain delimiters, line breaks and doubled quotes. A quote only opens a quoted
+ * cell at the start of the cell, leading blanks aside; elsewhere it is an ordinary character.
+ * Rows end at LF, CRLF or CR, and an empty line is a row with one empty cell.
+ * The tokenizer is the current row; it is overwritten by the next call to {@link #next()}.
+ */
+final class CsvTokenizer implements CsvRow {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final InputStream in;
+    private final byte delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private int line = 1;
+
+    // Unescaped bytes of the current row and the bounds of its cells
+    private byte[] row = new byte[1024];
+    private int rowLength;
+    private int[] cellStarts = new int[16];
+    private int[] cellEnds = new int[16];
+    private int cells;
+    private final AsciiCell asciiCell = new AsciiCell();
+
+    /**
+     * @param delimiter an ASCII cell delimiter
+     */
+    CsvTokenizer(InputStream in, byte delimiter) {
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next row
+     *
+     * @return false at the end of the input
+     */
+    boolean next() throws IOException {
+        rowLength = 0;
+        cells = 0;
+        if (skipLineFeed) {
+            // The previous row ended at a CR; a LF right after it belongs to the same line break
+            skipLineFeed = false;
+            if ((position < limit || fill()) && buffer[position] == LF) {
+                position++;
+            }
+        }
+        if (position == limit && !fill()) {
+            return false;
+        }
+
+        int rowLine = line;
+        int cellStart = 0;
+        boolean quoted = false;
+        boolean quotePending = false;
+        boolean blank = true;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (quoted && !quotePending) {
+                    throw new FileProcessingException("Unterminated quoted field starting on line " + rowLine);
+                }
+                endCell(cellStart);
+                return true;
+            }
+            byte b = buffer[position++];
+            if (quoted) {
+                if (!quotePending) {
+                    if (b == QUOTE) {
+                        quotePending = true;
+                    } else {
+                        if (b == LF) {
+                            line++;
+                        }
+                        append(b);
+                    }
+                    continue;
+                }
+                quotePending = false;
+                if (b == QUOTE) {
+                    append(b);
+                    continue;
+                }
+                // The pending quote closed the quoted section; this byte is read as unquoted
+                quoted = false;
+            }
+            if (b == delimiter) {
+                endCell(cellStart);
+                cellStart = rowLength;
+                blank = true;
+            } else if (b == LF) {
+                line++;
+                endCell(cellStart);
+                return true;
+            } else if (b == CR) {
+                line++;
+                endCell(cellStart);
+                skipLineFeed = true;
+                return true;
+            } else if (b == QUOTE && blank) {
+                // Leading blanks before an opening quote are dropped
+                rowLength = cellStart;
+                quoted = true;
+                blank = false;
+            } else {
+                if (b != ' ' && b != '\t') {
+                    blank = false;
+                }
+                append(b);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return cells;
+    }
+
+    @Override
+    public String cell(int column) {
+        long bounds = trimmedBounds(column);
+        int start = (int) (bounds >>> 32);
+        int end = (int) bounds;
+        return start == end ? "" : new String(row, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An ASCII cell is handed out as a view of the row bytes, so it is parsed without being decoded
+     */
+    @Override
+    public CharSequence chars(int column) {
+        long bounds = trimmedBounds(column);
+        int start = (int) (bounds >>> 32);
+        int end = (int) bounds;
+        for (int i = start; i < end; i++) {
+            if (row[i] < 0) {
+                return new String(row, start, end - start, StandardCharsets.UTF_8);
+            }
+        }
+        asciiCell.start = start;
+        asciiCell.end = end;
+        return asciiCell;
+    }
+
+    /**
+     * Start and end of a cell without surrounding whitespace, packed into one long
+     */
+    private long trimmedBounds(int column) {
+        if (column >= cells) {
+            throw new IndexOutOfBoundsException("Column " + column + " of a row with " + cells + " cells");
+        }
+        int start = cellStarts[column];
+        int end = cellEnds[column];
+        // Same as String.trim(): every byte up to a space is ASCII whitespace or a control character
+        while (start < end && (row[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (row[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return (long) start << 32 | end;
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            position = limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void append(byte b) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = b;
+    }
+
+    private void endCell(int start) {
+        if (cells == cellStarts.length) {
+            cellStarts = Arrays.copyOf(cellStarts, cells * 2);
+            cellEnds = Arrays.copyOf(cellEnds, cells * 2);
+        }
+        cellStarts[cells] = start;
+        cellEnds[cells] = rowLength;
+        cells++;
+    }
+
+    /**
+     * Characters of an ASCII cell, read straight from the row bytes
+     */
+    private final class AsciiCell implements CharSequence {
+        private int start;
+        private int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) row[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(row, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
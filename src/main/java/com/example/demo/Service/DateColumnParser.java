@@ -0,0 +1,254 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Date parser for a single column.
+ * The first values of the column are used to infer its layout; after that every value goes
+ * through an allocation-free fast path for the inferred layout. Values the fast path cannot
+ * handle (other layouts, out-of-range days, extended years) fall back to the formatter chain,
+ * which resolves them exactly as the original per-value parser did.
+ *
+ * A column whose sample fits both MM/dd/yyyy and dd/MM/yyyy is reported as ambiguous and
+ * resolved as MM/dd/yyyy, the order the formatter chain has always used. Values read while the
+ * column is being sampled use the preferred layout among those still possible; if the column
+ * then locks to a layout that reads one of them as a different date, it is reported as ambiguous
+ * too, as those rows were read differently from the rest.
+ * Instances are stateful and not thread-safe; use one per column per file.
+ */
+public class DateColumnParser {
+
+    /**
+     * Layouts with a fast path, in resolution priority order
+     */
+    public enum Layout {
+        ISO("yyyy-MM-dd"),
+        US_SLASH("MM/dd/yyyy"),
+        EU_SLASH("dd/MM/yyyy"),
+        US_DASH("MM-dd-yyyy");
+
+        private final String pattern;
+
+        Layout(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    static final int DEFAULT_SAMPLE_SIZE = 64;
+
+    private static final Layout[] LAYOUTS = Layout.values();
+    private static final int ALL_LAYOUTS = (1 << LAYOUTS.length) - 1;
+    private static final int SLASH_LAYOUTS = Layout.US_SLASH.bit() | Layout.EU_SLASH.bit();
+
+    private static final DateTimeFormatter[] FALLBACK_FORMATTERS = {
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+        DateTimeFormatter.ofPattern("MM-dd-yyyy")
+    };
+
+    private final int sampleSize;
+    private int candidates = ALL_LAYOUTS;
+    private int sampled;
+    private Layout layout;
+    private boolean ambiguous;
+    // Layouts that would have read a value sampled so far as a different date than it was read as
+    private int disagreeing;
+    private long fallbackCount;
+
+    public DateColumnParser() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    DateColumnParser(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * @return the parsed date, or null for a blank value
+     * @throws IllegalArgumentException if no supported layout matches
+     */
+    public LocalDate parse(CharSequence value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        CharSequence dateStr = trim(value);
+
+        if (layout != null) {
+            LocalDate date = parseFast(dateStr, layout);
+            return date != null ? date : parseSlow(dateStr);
+        }
+
+        // Still sampling: narrow the candidate layouts with this value
+        int matches = 0;
+        LocalDate first = null;
+        LocalDate preferred = null;
+        LocalDate[] dates = new LocalDate[LAYOUTS.length];
+        for (Layout candidate : LAYOUTS) {
+            LocalDate date = parseFast(dateStr, candidate);
+            if (date != null) {
+                dates[candidate.ordinal()] = date;
+                matches |= candidate.bit();
+                if (first == null) {
+                    first = date;
+                }
+                if (preferred == null && (candidates & candidate.bit()) != 0) {
+                    preferred = date;
+                }
+            }
+        }
+
+        if (matches != 0) {
+            LocalDate read = preferred != null ? preferred : first;
+            for (Layout candidate : LAYOUTS) {
+                LocalDate date = dates[candidate.ordinal()];
+                if (date != null && !date.equals(read)) {
+                    disagreeing |= candidate.bit();
+                }
+            }
+            // Values matching none of the remaining candidates are outliers and do not narrow them
+            if ((candidates & matches) != 0) {
+                candidates &= matches;
+            }
+            if (++sampled >= sampleSize || Integer.bitCount(candidates) == 1) {
+                lock();
+            }
+        }
+
+        if (preferred != null) {
+            return preferred;
+        }
+        return first != null ? first : parseSlow(dateStr);
+    }
+
+    /**
+     * Layout the column was resolved to, or null while it is still being sampled
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Whether the sample fitted both MM/dd/yyyy and dd/MM/yyyy, or values sampled before the
+     * layout was known were read as different dates than the layout reads them
+     */
+    public boolean isAmbiguous() {
+        if (layout != null) {
+            return ambiguous;
+        }
+        return sampled > 0 && (isAmbiguous(candidates) || (disagreeing & Integer.lowestOneBit(candidates)) != 0);
+    }
+
+    /**
+     * Number of values that needed the formatter chain
+     */
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+
+    private void lock() {
+        layout = LAYOUTS[Integer.numberOfTrailingZeros(candidates)];
+        ambiguous = isAmbiguous(candidates) || (disagreeing & layout.bit()) != 0;
+    }
+
+    private static boolean isAmbiguous(int candidates) {
+        return LAYOUTS[Integer.numberOfTrailingZeros(candidates)] == Layout.US_SLASH
+            && (candidates & SLASH_LAYOUTS) == SLASH_LAYOUTS;
+    }
+
+    /**
+     * The value itself when it has no surrounding whitespace, which is the usual case
+     */
+    private static CharSequence trim(CharSequence value) {
+        return value.charAt(0) > ' ' && value.charAt(value.length() - 1) > ' ' ? value : value.toString().trim();
+    }
+
+    private LocalDate parseSlow(CharSequence dateStr) {
+        fallbackCount++;
+        for (DateTimeFormatter formatter : FALLBACK_FORMATTERS) {
+            try {
+                return LocalDate.parse(dateStr, formatter);
+            } catch (Exception e) {
+                // Try next format
+            }
+        }
+        throw new IllegalArgumentException("Unable to parse date: " + dateStr);
+    }
+
+    /**
+     * Parses the fixed-width layout without allocating; returns null if the value does not fit
+     * the layout exactly or is not a valid calendar date
+     */
+    static LocalDate parseFast(CharSequence s, Layout layout) {
+        if (s.length() != 10) {
+            return null;
+        }
+        int year;
+        int month;
+        int day;
+        switch (layout) {
+            case ISO -> {
+                if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+                    return null;
+                }
+                year = digits(s, 0, 4);
+                month = digits(s, 5, 2);
+                day = digits(s, 8, 2);
+            }
+            case US_SLASH, US_DASH -> {
+                char separator = layout == Layout.US_SLASH ? '/' : '-';
+                if (s.charAt(2) != separator || s.charAt(5) != separator) {
+                    return null;
+                }
+                month = digits(s, 0, 2);
+                day = digits(s, 3, 2);
+                year = digits(s, 6, 4);
+            }
+            case EU_SLASH -> {
+                if (s.charAt(2) != '/' || s.charAt(5) != '/') {
+                    return null;
+                }
+                day = digits(s, 0, 2);
+                month = digits(s, 3, 2);
+                year = digits(s, 6, 4);
+            }
+            default -> {
+                return null;
+            }
+        }
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(CharSequence s, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
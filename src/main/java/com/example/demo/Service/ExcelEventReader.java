@@ -0,0 +1,325 @@
+package com.example.demo.service;
+
+import org.apache.poi.hssf.eventusermodel.*;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Streaming Excel reader built on the POI event APIs.
+ * XLSX sheets are parsed with SAX against a read-only shared strings table and XLS workbooks
+ * through the HSSF record listener, so rows are handed to the caller one at a time without
+ * building a Workbook/Sheet/Row/Cell object model.
+ */
+@Component
+public class ExcelEventReader {
+
+    /**
+     * Receives the rows of each sheet in document order
+     */
+    public interface RowHandler {
+        void startSheet(int sheetIndex, String sheetName);
+
+        /**
+         * Called for every row the sheet stores, including stored rows without cells, for both
+         * formats; rows the sheet does not store are skipped.
+         *
+         * @param cells cell values indexed by column; missing cells are null
+         */
+        void row(int rowNum, List<String> cells);
+    }
+
+    private final boolean readAllSheets;
+
+    public ExcelEventReader(@Value("${financial-data.excel.read-all-sheets:false}") boolean readAllSheets) {
+        this.readAllSheets = readAllSheets;
+    }
+
+    public void readXlsx(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            int sheetIndex = 0;
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    handler.startSheet(sheetIndex, sheets.getSheetName());
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(sharedStrings, styles, handler));
+                    parser.parse(new InputSource(sheet));
+                }
+                if (!readAllSheets) {
+                    break;
+                }
+                sheetIndex++;
+            }
+        }
+    }
+
+    public void readXls(File file, RowHandler handler) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            HssfRecordHandler recordHandler = new HssfRecordHandler(handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(recordHandler.workbookBuildingListener);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * Formats a numeric cell the same way for both formats: date-formatted cells become ISO
+     * dates (or date-times when they carry a time part), everything else keeps Java's double
+     * representation.
+     */
+    static String formatNumeric(double value, int formatIndex, String formatString) {
+        if (formatString != null && DateUtil.isADateFormat(formatIndex, formatString)
+                && DateUtil.isValidExcelDate(value)) {
+            LocalDateTime dateTime = DateUtil.getLocalDateTime(value);
+            return dateTime.toLocalTime().toSecondOfDay() == 0
+                ? dateTime.toLocalDate().toString()
+                : dateTime.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Column index of an A1-style cell reference such as "AB12"
+     */
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static void setCell(List<String> cells, int column, String value) {
+        while (cells.size() <= column) {
+            cells.add(null);
+        }
+        cells.set(column, value);
+    }
+
+    /**
+     * SAX handler for a single worksheet part
+     */
+    private class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+
+        private List<String> cells = new ArrayList<>();
+        private int rowNum = -1;
+        private int column = -1;
+        private String cellType;
+        private String styleIndex;
+        private boolean inValue;
+        private boolean inFormula;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    cells = new ArrayList<>();
+                    column = -1;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    styleIndex = attributes.getValue("s");
+                    value.setLength(0);
+                    formula.setLength(0);
+                }
+                case "v", "t" -> inValue = true;
+                case "f" -> inFormula = true;
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            } else if (inFormula) {
+                formula.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "f" -> inFormula = false;
+                case "c" -> setCell(cells, column, cellValue());
+                case "row" -> handler.row(rowNum, cells);
+                default -> { }
+            }
+        }
+
+        private String cellValue() {
+            if (!formula.isEmpty()) {
+                return formula.toString();
+            }
+            if (value.isEmpty()) {
+                return "";
+            }
+            String raw = value.toString();
+            if (cellType == null || cellType.equals("n")) {
+                return formatNumeric(Double.parseDouble(raw), formatIndex(), formatString());
+            }
+            return switch (cellType) {
+                case "s" -> sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+                case "b" -> String.valueOf(raw.charAt(0) == '1');
+                case "e" -> "";
+                default -> raw; // inlineStr, str
+            };
+        }
+
+        private int formatIndex() {
+            XSSFCellStyle style = style();
+            return style != null ? style.getDataFormat() : 0;
+        }
+
+        private String formatString() {
+            XSSFCellStyle style = style();
+            if (style == null) {
+                return null;
+            }
+            String format = style.getDataFormatString();
+            return format != null ? format : BuiltinFormats.getBuiltinFormat(style.getDataFormat());
+        }
+
+        private XSSFCellStyle style() {
+            if (styles == null) {
+                return null;
+            }
+            if (styleIndex != null) {
+                return styles.getStyleAt(Integer.parseInt(styleIndex));
+            }
+            return styles.getNumCellStyles() > 0 ? styles.getStyleAt(0) : null;
+        }
+    }
+
+    /**
+     * Assembles rows from the HSSF record stream
+     */
+    private class HssfRecordHandler implements HSSFListener {
+        private final RowHandler handler;
+        private final FormatTrackingHSSFListener formatListener;
+        private final EventWorkbookBuilder.SheetRecordCollectingListener workbookBuildingListener;
+        private final List<String> sheetNames = new ArrayList<>();
+
+        // Rows the sheet stores; the missing-record listener also ends rows that are gaps
+        private final BitSet storedRows = new BitSet();
+
+        private SSTRecord sharedStrings;
+        private int sheetIndex = -1;
+        private boolean inSheet;
+        private boolean skipSheet;
+        private int nextRow;
+        private List<String> cells = new ArrayList<>();
+
+        HssfRecordHandler(RowHandler handler) {
+            this.handler = handler;
+            this.formatListener = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(this));
+            this.workbookBuildingListener = new EventWorkbookBuilder.SheetRecordCollectingListener(formatListener);
+        }
+
+        @Override
+        public void processRecord(org.apache.poi.hssf.record.Record record) {
+            switch (record) {
+                case BoundSheetRecord sheet -> sheetNames.add(sheet.getSheetname());
+                case SSTRecord sst -> sharedStrings = sst;
+                case BOFRecord bof when bof.getType() == BOFRecord.TYPE_WORKSHEET -> {
+                    sheetIndex++;
+                    inSheet = true;
+                    skipSheet = !readAllSheets && sheetIndex > 0;
+                    storedRows.clear();
+                    nextRow = 0;
+                    cells = new ArrayList<>();
+                    if (!skipSheet) {
+                        String name = sheetIndex < sheetNames.size() ? sheetNames.get(sheetIndex) : null;
+                        handler.startSheet(sheetIndex, name);
+                    }
+                }
+                case RowRecord row -> storedRows.set(row.getRowNumber());
+                case LastCellOfRowDummyRecord lastCell -> {
+                    if (!cells.isEmpty() || storedRows.get(lastCell.getRow())) {
+                        emitRow(lastCell.getRow(), cells);
+                    }
+                    nextRow = lastCell.getRow() + 1;
+                    cells = new ArrayList<>();
+                }
+                case EOFRecord eof when inSheet -> {
+                    // Stored rows after the last row with cells get no end-of-row record
+                    for (int row = storedRows.nextSetBit(nextRow); row >= 0; row = storedRows.nextSetBit(row + 1)) {
+                        emitRow(row, new ArrayList<>());
+                    }
+                    inSheet = false;
+                }
+                case LabelSSTRecord label -> addCell(label.getColumn(),
+                    sharedStrings != null ? sharedStrings.getString(label.getSSTIndex()).getString() : "");
+                case LabelRecord label -> addCell(label.getColumn(), label.getValue());
+                case NumberRecord number -> addCell(number.getColumn(), formatNumeric(number.getValue(),
+                    formatListener.getFormatIndex(number), formatListener.getFormatString(number)));
+                case FormulaRecord formula -> addCell(formula.getColumn(), HSSFFormulaParser.toFormulaString(
+                    workbookBuildingListener.getStubHSSFWorkbook(), formula.getParsedExpression()));
+                case BoolErrRecord boolErr -> addCell(boolErr.getColumn(),
+                    boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) : "");
+                case BlankRecord blank -> addCell(blank.getColumn(), "");
+                default -> { }
+            }
+        }
+
+        private void emitRow(int rowNum, List<String> row) {
+            if (!skipSheet) {
+                handler.row(rowNum, row);
+            }
+        }
+
+        private void addCell(int column, String value) {
+            if (!skipSheet) {
+                setCell(cells, column, value);
+            }
+        }
+    }
+}
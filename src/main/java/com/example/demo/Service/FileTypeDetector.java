@@ -1,17 +1,35 @@
 package com.example.demo.service;
 
+import com.example.demo.exception.FileProcessingException;
 import com.example.demo.exception.UnsupportedFileFormatException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
- * Utility class to detect file types
+ * Detects the type of an upload from its content, using the file name and MIME type only to
+ * tell apart the text formats
  */
 @Slf4j
 @Component
 public class FileTypeDetector {
     
+    /**
+     * Bytes read from the start of a file to detect its type
+     */
+    static final int HEADER_BYTES = 4 * 1024;
+    
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+    private static final byte[] EMPTY_ZIP_MAGIC = {'P', 'K', 5, 6};
+    private static final byte[] OLE2_MAGIC = {
+        (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+    };
+    private static final int MAX_CONTROL_PERCENT = 5;
+    
     public enum FileType {
         CSV("text/csv", "csv"),
         EXCEL_XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
@@ -37,6 +55,17 @@ public class FileTypeDetector {
         }
     }
     
+    /**
+     * Detects the type of an upload from its first bytes; at most {@value #HEADER_BYTES} bytes are read.
+     * Containers are recognized by their magic bytes whatever the file is called: {@code PK\3\4}
+     * is an XLSX workbook when its first entry is an Office Open XML part and a ZIP archive
+     * otherwise, and the OLE2 signature is an XLS workbook. Text starting with '[' or '{' is JSON.
+     * Other text keeps a declared CSV or TXT type; a file declared as another type is sniffed as
+     * comma-separated (CSV) or otherwise delimited (TEXT). Binary content that is none of these
+     * is rejected before any parser sees it.
+     *
+     * @throws UnsupportedFileFormatException if the content or the declared type is not supported
+     */
     public FileType detectFileType(MultipartFile file) {
         String contentType = file.getContentType();
         String filename = file.getOriginalFilename();
@@ -45,39 +74,163 @@ public class FileTypeDetector {
             throw new UnsupportedFileFormatException("Filename is empty or null");
         }
         
+        byte[] header;
+        if (file instanceof HashedUpload upload) {
+            // Captured while the upload was copied
+            header = upload.getHeader();
+        } else {
+            try (InputStream in = file.getInputStream()) {
+                header = in.readNBytes(HEADER_BYTES);
+            } catch (IOException e) {
+                throw new FileProcessingException("Error reading file: " + e.getMessage(), e);
+            }
+        }
+        return detectFileType(filename, contentType, header);
+    }
+    
+    /**
+     * Detects the type of a file from its first bytes, as {@link #detectFileType(MultipartFile)} does
+     */
+    public FileType detectFileType(String filename, String contentType, byte[] header) {
         String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+        FileType declared = declaredType(extension, contentType);
         
+        FileType detected = detectContent(header, declared);
+        if (detected == null) {
+            throw new UnsupportedFileFormatException(
+                String.format("Unsupported file format. Extension: %s, ContentType: %s", extension, contentType));
+        }
+        if (detected != declared) {
+            log.info("File {} was declared as {} but its content is {}", filename, declared, detected);
+        }
+        log.debug("Detected file type {} for {}", detected, filename);
+        return detected;
+    }
+    
+    /**
+     * Type given by the MIME type, or else by the extension; null if neither names a supported type
+     */
+    private static FileType declaredType(String extension, String contentType) {
         // Check by MIME type first
         if (contentType != null) {
             for (FileType type : FileType.values()) {
                 if (contentType.equalsIgnoreCase(type.mimeType)) {
-                    log.debug("Detected file type {} by MIME type: {}", type, contentType);
                     return type;
                 }
             }
+            if (contentType.equalsIgnoreCase("application/x-zip-compressed")) {
+                return FileType.ZIP;
+            }
         }
         
         // Fallback to extension
         for (FileType type : FileType.values()) {
             if (type.extension.equalsIgnoreCase(extension)) {
-                log.debug("Detected file type {} by extension: {}", type, extension);
                 return type;
             }
         }
+        return extension.equals("tsv") ? FileType.TEXT : null;
+    }
+    
+    /**
+     * Type of the content, or null if the content is garbage or, for plain text, nothing was declared
+     */
+    static FileType detectContent(byte[] header, FileType declared) {
+        if (header.length == 0) {
+            // Nothing to sniff; the parser of the declared type reports the empty file
+            return declared;
+        }
+        if (startsWith(header, ZIP_MAGIC) || startsWith(header, EMPTY_ZIP_MAGIC)) {
+            return isOfficeOpenXml(header) || declared == FileType.EXCEL_XLSX ? FileType.EXCEL_XLSX : FileType.ZIP;
+        }
+        if (startsWith(header, OLE2_MAGIC)) {
+            return FileType.EXCEL_XLS;
+        }
         
-        // Try to detect JSON by content
-        if (extension.equals("json") || contentType != null && contentType.contains("json")) {
+        String text = decode(header);
+        if (!isText(text)) {
+            return null;
+        }
+        char first = firstNonWhitespace(text);
+        if (first == '[' || first == '{') {
             return FileType.JSON;
         }
-        
-        // Check for ZIP file
-        if (extension.equals("zip") || 
-            (contentType != null && (contentType.equals("application/zip") || contentType.equals("application/x-zip-compressed")))) {
-            return FileType.ZIP;
+        if (declared == FileType.CSV || declared == FileType.TEXT) {
+            return declared;
         }
-        
-        throw new UnsupportedFileFormatException(
-            String.format("Unsupported file format. Extension: %s, ContentType: %s", extension, contentType));
+        if (declared == null) {
+            return null;
+        }
+        // Text mislabelled as JSON, a workbook or an archive
+        return CsvEventReader.sniffDelimiter(header, header.length < HEADER_BYTES) == ',' ? FileType.CSV : FileType.TEXT;
+    }
+    
+    /**
+     * Whether the first local file header of a ZIP container names an Office Open XML part
+     */
+    private static boolean isOfficeOpenXml(byte[] header) {
+        if (header.length < 30) {
+            return false;
+        }
+        int nameLength = (header[26] & 0xFF) | (header[27] & 0xFF) << 8;
+        if (header.length < 30 + nameLength) {
+            return false;
+        }
+        String name = new String(header, 30, nameLength, StandardCharsets.UTF_8);
+        return name.equals("[Content_Types].xml") || name.startsWith("_rels/")
+            || name.startsWith("docProps/") || name.startsWith("xl/");
+    }
+    
+    /**
+     * The header as text, in UTF-16 if it starts with a UTF-16 byte order mark and in UTF-8 otherwise
+     */
+    private static String decode(byte[] header) {
+        if (header.length >= 2 && (header[0] & 0xFF) == 0xFE && (header[1] & 0xFF) == 0xFF) {
+            return new String(header, 2, header.length - 2, StandardCharsets.UTF_16BE);
+        }
+        if (header.length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xFE) {
+            return new String(header, 2, header.length - 2, StandardCharsets.UTF_16LE);
+        }
+        return new String(header, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Text has no NUL characters and few other control characters besides tabs and line breaks
+     */
+    private static boolean isText(String text) {
+        int controls = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 0) {
+                return false;
+            }
+            if ((c < ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\f') || c == 0x7F) {
+                controls++;
+            }
+        }
+        return controls * 100 <= text.length() * MAX_CONTROL_PERCENT;
+    }
+    
+    private static char firstNonWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c) && c != '\uFEFF') {
+                return c;
+            }
+        }
+        return 0;
+    }
+    
+    private static boolean startsWith(byte[] header, byte[] magic) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
     }
     
     public boolean isSupported(MultipartFile file) {
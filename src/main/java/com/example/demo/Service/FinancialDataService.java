@@ -1,29 +1,30 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ColumnParseFailures;
 import com.example.demo.dto.FinancialDataRecord;
+import com.example.demo.dto.ParseDiagnostics;
 import com.example.demo.dto.ZipFileInfo;
 import com.example.demo.dto.ZipProcessingResult;
 import com.example.demo.exception.FileProcessingException;
 import com.example.demo.exception.UnsupportedFileFormatException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.opencsv.CSVReader;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Service for processing financial data from various file formats
@@ -33,142 +34,295 @@ import java.util.zip.ZipInputStream;
 public class FinancialDataService {
     
     private final FileTypeDetector fileTypeDetector;
-    private final ObjectMapper objectMapper;
+    private final JsonEventReader jsonEventReader;
+    private final ExcelEventReader excelEventReader;
+    private final CsvEventReader csvEventReader;
+    private final ThreadPoolExecutor zipEntryExecutor;
+    private final ConversionMetrics metrics;
+    // Warnings about single files; an archive of bad files would otherwise log a few lines per entry
+    private final LogRateLimiter fileWarnings = new LogRateLimiter(20, Duration.ofMinutes(1));
     
     @Autowired
-    public FinancialDataService(FileTypeDetector fileTypeDetector, ObjectMapper objectMapper) {
+    public FinancialDataService(FileTypeDetector fileTypeDetector, JsonEventReader jsonEventReader, 
+                                ExcelEventReader excelEventReader, CsvEventReader csvEventReader, 
+                                @Qualifier("zipEntryExecutor") ThreadPoolExecutor zipEntryExecutor,
+                                ConversionMetrics metrics) {
         this.fileTypeDetector = fileTypeDetector;
-        this.objectMapper = objectMapper;
+        this.jsonEventReader = jsonEventReader;
+        this.excelEventReader = excelEventReader;
+        this.csvEventReader = csvEventReader;
+        this.zipEntryExecutor = zipEntryExecutor;
+        this.metrics = metrics;
     }
     
+    /**
+     * Parses the file into a columnar {@link RecordBatch}, which is returned as its record list view
+     */
     public List<FinancialDataRecord> processFile(MultipartFile file) {
-        FileTypeDetector.FileType fileType = fileTypeDetector.detectFileType(file);
-        
+        RecordBatch records = new RecordBatch();
+        streamFile(file, records);
+        return records;
+    }
+    
+    /**
+     * Parses the file and pushes each record into the sink as soon as it is built,
+     * without materializing the full record list.
+     * 
+     * @return number of records emitted
+     */
+    public int streamFile(MultipartFile file, FinancialRecordSink sink) {
+        return streamFile(file, fileTypeDetector.detectFileType(file), sink);
+    }
+    
+    /**
+     * Parses a file whose type has already been detected, as {@link #streamFile(MultipartFile, FinancialRecordSink)} does
+     */
+    public int streamFile(MultipartFile file, FileTypeDetector.FileType fileType, FinancialRecordSink sink) {
+        return streamFile(file, fileType, sink, new ParseDiagnostics());
+    }
+    
+    /**
+     * Parses a file whose type has already been detected, adding its parse time, row counts and
+     * parse failures to the diagnostics; a ZIP archive adds those of every entry
+     */
+    public int streamFile(MultipartFile file, FileTypeDetector.FileType fileType, FinancialRecordSink sink,
+                          ParseDiagnostics diagnostics) {
         log.info("Processing file: {} with type: {}", file.getOriginalFilename(), fileType);
         
-        return switch (fileType) {
-            case CSV -> processCsvFile(file);
-            case EXCEL_XLSX, EXCEL_XLS -> processExcelFile(file);
-            case JSON -> processJsonFile(file);
-            case TEXT -> processTextFile(file);
-            case ZIP -> {
-                ZipProcessingResult result = processZipFile(file);
-                yield result.getAllRecords();
-            }
-        };
+        if (fileType == FileTypeDetector.FileType.ZIP) {
+            ZipProcessingResult result = processZipFile(file, sink);
+            result.getFileInfos().forEach(fileInfo -> diagnostics.add(fileInfo.getDiagnostics()));
+            return result.getFileInfos().stream().mapToInt(ZipFileInfo::getRecordCount).sum();
+        }
+        return parseFile(file, fileType, sink, diagnostics);
+    }
+    
+    /**
+     * Parses a file that is not an archive, timing it and counting its bytes and records by format
+     */
+    private int parseFile(MultipartFile file, FileTypeDetector.FileType fileType, FinancialRecordSink sink,
+                          ParseDiagnostics diagnostics) {
+        Timer.Sample sample = metrics.start();
+        long dateFailures = diagnostics.getDateParseFailures();
+        long amountFailures = diagnostics.getAmountParseFailures();
+        try {
+            int recordCount = switch (fileType) {
+                case CSV -> processCsvFile(file, sink, diagnostics);
+                case EXCEL_XLSX, EXCEL_XLS -> processExcelFile(file, fileType, sink, diagnostics);
+                case JSON -> processJsonFile(file, sink, diagnostics);
+                case TEXT -> processTextFile(file, sink, diagnostics);
+                case ZIP -> throw new IllegalArgumentException("A ZIP archive is not parsed as a single file");
+            };
+            metrics.parsed(fileType, file.getSize(), recordCount);
+            metrics.parseFailures(fileType, ColumnParseFailures.Kind.DATE,
+                diagnostics.getDateParseFailures() - dateFailures);
+            metrics.parseFailures(fileType, ColumnParseFailures.Kind.AMOUNT,
+                diagnostics.getAmountParseFailures() - amountFailures);
+            return recordCount;
+        } finally {
+            long nanos = metrics.stop(sample, ConversionMetrics.Stage.PARSE, fileType);
+            diagnostics.setParseMillis(diagnostics.getParseMillis() + nanos / 1_000_000.0);
+        }
     }
     
     public ZipProcessingResult processZipFile(MultipartFile zipFile) {
+        RecordBatch records = new RecordBatch();
+        ZipProcessingResult result = processZipFile(zipFile, records);
+        result.setAllRecords(records);
+        return result;
+    }
+    
+    /**
+     * Processes a ZIP archive, pushing the records of every successfully parsed entry into the sink
+     * in archive order. The upload is opened as a {@link ZipFile} in place, or spilled to a temp
+     * file first if it is not on local disk, so entries are decompressed lazily from the central directory by the worker that parses them.
+     * Entries are parsed concurrently on the ZIP entry executor, each into its own
+     * {@link RecordSpool}, so a file failing halfway through contributes no records. The returned
+     * result carries the per-file information, including each processed file's summary metrics;
+     * its record collection is left empty.
+     */
+    public ZipProcessingResult processZipFile(MultipartFile zipFile, FinancialRecordSink sink) {
+        return processZipFile(zipFile, sink, new ConversionProgress());
+    }
+    
+    /**
+     * Processes a ZIP archive as {@link #processZipFile(MultipartFile, FinancialRecordSink)} does,
+     * counting entries, finished entries and parsed records in the progress as the workers go
+     */
+    public ZipProcessingResult processZipFile(MultipartFile zipFile, FinancialRecordSink sink, 
+                                              ConversionProgress progress) {
         ZipProcessingResult result = new ZipProcessingResult();
+        Timer.Sample sample = metrics.start();
+        List<Future<ZipEntryResult>> pending = new ArrayList<>();
+        int totalRecords = 0;
+        Path localFile = null;
         
-        try (ZipInputStream zipInputStream = new ZipInputStream(zipFile.getInputStream())) {
-            ZipEntry entry;
-            int fileCount = 0;
+        try {
+            localFile = localPath(zipFile, ".zip");
             
-            while ((entry = zipInputStream.getNextEntry()) != null) {
-                if (entry.isDirectory()) {
-                    continue;
-                }
-                
-                String entryName = entry.getName();
-                fileCount++;
-                result.setTotalFiles(fileCount);
-                
-                log.info("Processing file from ZIP: {}", entryName);
-                
-                // Read the entry content
-                byte[] buffer = new byte[1024];
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                int len;
-                while ((len = zipInputStream.read(buffer)) > 0) {
-                    baos.write(buffer, 0, len);
-                }
-                byte[] fileContent = baos.toByteArray();
-                
-                // Create a MultipartFile-like wrapper for the extracted file
-                ExtractedFile extractedFile = new ExtractedFile(entryName, fileContent);
-                
-                // Try to process the file
-                ZipFileInfo fileInfo = ZipFileInfo.builder()
-                    .filename(entryName)
-                    .processed(false)
-                    .build();
-                
+            try (ZipFile archive = new ZipFile(localFile.toFile())) {
                 try {
-                    // Detect file type and process
-                    FileTypeDetector.FileType entryFileType = fileTypeDetector.detectFileType(extractedFile);
-                    fileInfo.setFileType(entryFileType.name());
+                    Enumeration<? extends ZipEntry> entries = archive.entries();
+                    int fileCount = 0;
                     
-                    // Check if file type is supported (exclude ZIP files - nested ZIPs are not supported)
-                    if (entryFileType == FileTypeDetector.FileType.ZIP) {
-                        log.warn("Nested ZIP files are not supported. Skipping file: {}", entryName);
-                        fileInfo.setErrorMessage("Nested ZIP files are not supported");
-                        fileInfo.setProcessed(false);
-                    } else {
-                        // Process supported file types
-                        List<FinancialDataRecord> records = switch (entryFileType) {
-                            case CSV -> processCsvFile(extractedFile);
-                            case EXCEL_XLSX, EXCEL_XLS -> processExcelFile(extractedFile);
-                            case JSON -> processJsonFile(extractedFile);
-                            case TEXT -> processTextFile(extractedFile);
-                            default -> {
-                                log.warn("Unsupported file type in ZIP: {} for file: {}", entryFileType, entryName);
-                                yield null; // Use null to indicate unsupported type
-                            }
-                        };
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (entry.isDirectory()) {
+                            continue;
+                        }
                         
-                        // Only mark as processed if records were successfully extracted
-                        if (records != null) {
-                            fileInfo.setRecordCount(records.size());
-                            fileInfo.setProcessed(true);
-                            result.getAllRecords().addAll(records);
+                        fileCount++;
+                        result.setTotalFiles(fileCount);
+                        progress.fileFound();
+                        
+                        // Wrap the entry as a MultipartFile that streams straight from the archive
+                        ExtractedFile extractedFile = new ExtractedFile(archive, entry);
+                        pending.add(zipEntryExecutor.submit(() -> {
+                            try {
+                                return processZipEntry(extractedFile, progress);
+                            } finally {
+                                progress.fileDone();
+                            }
+                        }));
+                    }
+                    
+                    // Merge the results in archive order
+                    for (Future<ZipEntryResult> future : pending) {
+                        ZipEntryResult entryResult = future.get();
+                        result.getFileInfos().add(entryResult.fileInfo());
+                        if (entryResult.records() != null) {
+                            // Records are appended in archive order, so each file holds a contiguous range
+                            entryResult.fileInfo().setFirstRecord(totalRecords);
+                            try (RecordSpool entryRecords = entryResult.records()) {
+                                for (RecordBatch batch : entryRecords.batches()) {
+                                    batch.forEachRow(sink);
+                                }
+                                // Replaying spooled the entry's last batch, so its peak is complete
+                                entryResult.fileInfo().getDiagnostics().setPeakBufferedBytes(entryRecords.getPeakBatchBytes());
+                            }
+                            totalRecords += entryResult.fileInfo().getRecordCount();
                             result.setSuccessfullyProcessedFiles(result.getSuccessfullyProcessedFiles() + 1);
-                            
-                            log.info("Successfully processed {} records from ZIP file: {}", records.size(), entryName);
-                        } else {
-                            // Unsupported file type
-                            log.warn("File type {} is not supported for processing. File: {}", entryFileType, entryName);
-                            fileInfo.setErrorMessage("Unsupported file type: " + entryFileType);
-                            fileInfo.setProcessed(false);
                         }
                     }
-                    
-                } catch (UnsupportedFileFormatException e) {
-                    // File type detection failed - unsupported format
-                    log.warn("Unsupported file format in ZIP: {} - {}", entryName, e.getMessage());
-                    fileInfo.setErrorMessage("Unsupported file format: " + e.getMessage());
-                    fileInfo.setProcessed(false);
                 } catch (Exception e) {
-                    // Other processing errors
-                    log.error("Error processing file {} from ZIP: {}", entryName, e.getMessage(), e);
-                    fileInfo.setErrorMessage(e.getMessage());
-                    fileInfo.setProcessed(false);
+                    // Workers must be done with the archive before it is closed
+                    discardPending(pending);
+                    throw e;
                 }
-                
-                result.getFileInfos().add(fileInfo);
-                zipInputStream.closeEntry();
             }
             
             log.info("ZIP processing complete. Total files: {}, Successfully processed: {}, Total records: {}", 
-                result.getTotalFiles(), result.getSuccessfullyProcessedFiles(), result.getAllRecords().size());
+                result.getTotalFiles(), result.getSuccessfullyProcessedFiles(), totalRecords);
             
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             throw new FileProcessingException("Error processing ZIP file: " + e.getMessage(), e);
+        } finally {
+            releaseLocalPath(zipFile, localFile);
+            metrics.stop(sample, ConversionMetrics.Stage.UNZIP, FileTypeDetector.FileType.ZIP);
         }
         
         return result;
     }
     
     /**
-     * Helper class to wrap extracted ZIP file entries as MultipartFile-like objects
+     * Detects and parses a single ZIP entry, counting its records in the progress.
+     * Never throws: failures are recorded on the file info.
+     */
+    private ZipEntryResult processZipEntry(ExtractedFile extractedFile, ConversionProgress progress) {
+        String entryName = extractedFile.getOriginalFilename();
+        log.debug("Processing file from ZIP: {}", entryName);
+        
+        // Try to process the file
+        ParseDiagnostics entryDiagnostics = new ParseDiagnostics();
+        ZipFileInfo fileInfo = ZipFileInfo.builder()
+            .filename(entryName)
+            .processed(false)
+            .diagnostics(entryDiagnostics)
+            .build();
+        
+        RecordSpool entryRecords = new RecordSpool();
+        SummaryAggregator entrySummary = new SummaryAggregator();
+        FinancialRecordSink entrySink = entryRecords.andThen(entrySummary).andThen(progress);
+        try {
+            // Detect file type and process
+            FileTypeDetector.FileType entryFileType = fileTypeDetector.detectFileType(extractedFile);
+            fileInfo.setFileType(entryFileType.name());
+            
+            // Check if file type is supported (exclude ZIP files - nested ZIPs are not supported)
+            if (entryFileType == FileTypeDetector.FileType.ZIP) {
+                warnRateLimited("Nested ZIP files are not supported. Skipping file: {}", entryName);
+                fileInfo.setErrorMessage("Nested ZIP files are not supported");
+                fileInfo.setProcessed(false);
+            } else {
+                // Process supported file types
+                int recordCount = parseFile(extractedFile, entryFileType, entrySink, entryDiagnostics);
+                fileInfo.setRecordCount(recordCount);
+                fileInfo.setSummary(entrySummary);
+                fileInfo.setFieldNames(entryRecords.getFieldNames());
+                fileInfo.setProcessed(true);
+                
+                log.debug("Successfully processed {} records from ZIP file: {}", recordCount, entryName);
+                metrics.zipEntry(true);
+                return new ZipEntryResult(fileInfo, entryRecords);
+            }
+            
+        } catch (UnsupportedFileFormatException e) {
+            // File type detection failed - unsupported format
+            warnRateLimited("Unsupported file format in ZIP: {} - {}", entryName, e.getMessage());
+            fileInfo.setErrorMessage("Unsupported file format: " + e.getMessage());
+            fileInfo.setProcessed(false);
+        } catch (Exception e) {
+            // Other processing errors
+            warnRateLimited("Error processing file {} from ZIP: {}", entryName, e.getMessage(), e);
+            fileInfo.setErrorMessage(e.getMessage());
+            fileInfo.setProcessed(false);
+        }
+        
+        // Records parsed before the entry failed are dropped with it, and count as skipped rows
+        entryDiagnostics.setRowsRead(Math.max(entryDiagnostics.getRowsRead(), entryRecords.size()));
+        entryRecords.close();
+        metrics.zipEntry(false);
+        return new ZipEntryResult(fileInfo, null);
+    }
+    
+    /**
+     * Waits for entries still being parsed after a failure and releases their record spools
+     */
+    private void discardPending(List<Future<ZipEntryResult>> pending) {
+        for (Future<ZipEntryResult> future : pending) {
+            try {
+                ZipEntryResult entryResult = future.get();
+                if (entryResult.records() != null) {
+                    entryResult.records().close();
+                }
+            } catch (Exception e) {
+                log.debug("Discarding ZIP entry result: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Outcome of parsing one ZIP entry; records is null unless the entry was processed
+     */
+    private record ZipEntryResult(ZipFileInfo fileInfo, RecordSpool records) {
+    }
+    
+    /**
+     * Helper class to wrap ZIP file entries as MultipartFile-like objects.
+     * Content is not buffered; every call to {@link #getInputStream()} opens a fresh stream on the entry.
      */
     private static class ExtractedFile implements MultipartFile {
+        private final ZipFile archive;
+        private final ZipEntry entry;
         private final String filename;
-        private final byte[] content;
         
-        public ExtractedFile(String filename, byte[] content) {
-            this.filename = filename;
-            this.content = content;
+        public ExtractedFile(ZipFile archive, ZipEntry entry) {
+            this.archive = archive;
+            this.entry = entry;
+            this.filename = entry.getName();
         }
         
         @Override
@@ -200,22 +354,24 @@ public class FinancialDataService {
         
         @Override
         public boolean isEmpty() {
-            return content == null || content.length == 0;
+            return getSize() == 0;
         }
         
         @Override
         public long getSize() {
-            return content != null ? content.length : 0;
+            return Math.max(entry.getSize(), 0);
         }
         
         @Override
-        public byte[] getBytes() {
-            return content != null ? content : new byte[0];
+        public byte[] getBytes() throws IOException {
+            try (InputStream in = getInputStream()) {
+                return in.readAllBytes();
+            }
         }
         
         @Override
-        public java.io.InputStream getInputStream() {
-            return new ByteArrayInputStream(content != null ? content : new byte[0]);
+        public InputStream getInputStream() throws IOException {
+            return archive.getInputStream(entry);
         }
         
         @Override
@@ -224,245 +380,246 @@ public class FinancialDataService {
         }
     }
     
-    private List<FinancialDataRecord> processCsvFile(MultipartFile file) {
-        List<FinancialDataRecord> records = new ArrayList<>();
-        
-        try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream()))) {
-            String[] headers = reader.readNext();
-            if (headers == null) {
+    private int processCsvFile(MultipartFile file, FinancialRecordSink sink, ParseDiagnostics diagnostics) {
+        try (InputStream in = file.getInputStream()) {
+            CsvRecordEmitter emitter = new CsvRecordEmitter(sink);
+            if (csvEventReader.read(in, emitter) == 0) {
                 throw new FileProcessingException("CSV file is empty");
             }
             
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                Map<String, Object> fields = new LinkedHashMap<>();
-                for (int i = 0; i < headers.length && i < line.length; i++) {
-                    fields.put(headers[i].trim(), line[i].trim());
-                }
-                
-                FinancialDataRecord record = parseFinancialRecord(fields);
-                records.add(record);
-            }
-            
-            log.info("Processed {} records from CSV file", records.size());
+            reportParseProblems(emitter.binder, file);
+            recordDiagnostics(diagnostics, emitter.rows, emitter.count, emitter.binder);
+            log.debug("Processed {} records from CSV file", emitter.count);
+            return emitter.count;
         } catch (Exception e) {
             throw new FileProcessingException("Error processing CSV file: " + e.getMessage(), e);
         }
+    }
+    
+    /**
+     * Turns delimited rows into records. The first row is the header row.
+     */
+    private static class CsvRecordEmitter implements CsvEventReader.RowHandler {
+        private final FinancialRecordSink sink;
+        private final RecordBinder binder = new RecordBinder();
+        private boolean headerPending = true;
+        private int rows;
+        private int count;
         
-        return records;
+        CsvRecordEmitter(FinancialRecordSink sink) {
+            this.sink = sink;
+        }
+        
+        @Override
+        public void row(CsvRow row) {
+            rows++;
+            if (headerPending) {
+                binder.setHeaders(row);
+                headerPending = false;
+                return;
+            }
+            sink.acceptRow(binder.bindRow(row));
+            count++;
+        }
     }
     
-    private List<FinancialDataRecord> processExcelFile(MultipartFile file) {
-        List<FinancialDataRecord> records = new ArrayList<>();
+    private int processExcelFile(MultipartFile file, FileTypeDetector.FileType fileType, FinancialRecordSink sink,
+                                 ParseDiagnostics diagnostics) {
+        Path localFile = null;
         
-        try (Workbook workbook = createWorkbook(file)) {
-            Sheet sheet = workbook.getSheetAt(0);
+        try {
+            // The event readers need random access to the container, so they read it from disk
+            localFile = localPath(file, "." + fileType.getExtension());
             
-            if (sheet.getPhysicalNumberOfRows() == 0) {
-                throw new FileProcessingException("Excel file is empty");
+            ExcelRecordEmitter emitter = new ExcelRecordEmitter(sink);
+            if (fileType == FileTypeDetector.FileType.EXCEL_XLSX) {
+                excelEventReader.readXlsx(localFile.toFile(), emitter);
+            } else {
+                excelEventReader.readXls(localFile.toFile(), emitter);
             }
             
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new FileProcessingException("Excel file has no header row");
+            if (emitter.rowsSeen == 0) {
+                throw new FileProcessingException("Excel file is empty");
             }
             
-            List<String> headers = new ArrayList<>();
-            for (Cell cell : headerRow) {
-                headers.add(getCellValueAsString(cell));
+            reportParseProblems(emitter.binder, file);
+            recordDiagnostics(diagnostics, emitter.rowsSeen, emitter.count, emitter.binder);
+            log.debug("Processed {} records from Excel file", emitter.count);
+            return emitter.count;
+        } catch (Exception e) {
+            throw new FileProcessingException("Error processing Excel file: " + e.getMessage(), e);
+        } finally {
+            releaseLocalPath(file, localFile);
+        }
+    }
+    
+    /**
+     * Turns spreadsheet rows into records. The first row of every sheet is that sheet's header row.
+     */
+    private class ExcelRecordEmitter implements ExcelEventReader.RowHandler {
+        private final FinancialRecordSink sink;
+        private final RecordBinder binder = new RecordBinder();
+        private boolean headerPending;
+        private int columns;
+        private int rowsSeen;
+        private int count;
+        
+        ExcelRecordEmitter(FinancialRecordSink sink) {
+            this.sink = sink;
+        }
+        
+        @Override
+        public void startSheet(int sheetIndex, String sheetName) {
+            headerPending = true;
+        }
+        
+        @Override
+        public void row(int rowNum, List<String> cells) {
+            rowsSeen++;
+            if (headerPending) {
+                // Columns without a header cell stay null in the plan and are skipped
+                binder.setHeaders(cells);
+                columns = cells.size();
+                headerPending = false;
+                return;
             }
             
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
-                Map<String, Object> fields = new LinkedHashMap<>();
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    fields.put(headers.get(j), getCellValueAsString(cell));
-                }
-                
-                FinancialDataRecord record = parseFinancialRecord(fields);
-                records.add(record);
+            Object[] values = new Object[columns];
+            for (int j = 0; j < columns; j++) {
+                String value = j < cells.size() ? cells.get(j) : null;
+                values[j] = value != null ? value : "";
             }
             
-            log.info("Processed {} records from Excel file", records.size());
-        } catch (Exception e) {
-            throw new FileProcessingException("Error processing Excel file: " + e.getMessage(), e);
+            sink.acceptRow(binder.bindRow(values));
+            count++;
         }
-        
-        return records;
     }
     
-    private Workbook createWorkbook(MultipartFile file) throws Exception {
-        String filename = file.getOriginalFilename();
-        if (filename != null && filename.endsWith(".xlsx")) {
-            return new XSSFWorkbook(file.getInputStream());
-        } else {
-            return new HSSFWorkbook(file.getInputStream());
+    /**
+     * A file on local disk with the content, for the readers that need random access. An upload
+     * that is already on local disk is read in place; anything else is spilled to a temp file.
+     */
+    private Path localPath(MultipartFile file, String suffix) throws IOException {
+        if (file instanceof HashedUpload upload) {
+            return upload.getPath();
         }
+        return spillToTempFile(file, suffix);
     }
     
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
+    /**
+     * Deletes the file from {@link #localPath} unless it belongs to the upload
+     */
+    private void releaseLocalPath(MultipartFile file, Path path) {
+        if (!(file instanceof HashedUpload)) {
+            deleteTempFile(path);
         }
-        
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> {
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    yield cell.getDateCellValue().toString();
-                } else {
-                    yield String.valueOf(cell.getNumericCellValue());
-                }
-            }
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            case FORMULA -> cell.getCellFormula();
-            default -> "";
-        };
     }
     
-    private List<FinancialDataRecord> processJsonFile(MultipartFile file) {
-        List<FinancialDataRecord> records = new ArrayList<>();
-        
+    private Path spillToTempFile(MultipartFile file, String suffix) throws IOException {
+        Path tempFile = Files.createTempFile("financial-upload-", suffix);
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteTempFile(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+    
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
         try {
-            String content = new String(file.getBytes());
-            
-            // Try to parse as array first
-            List<Map<String, Object>> dataList = objectMapper.readValue(
-                content, new TypeReference<List<Map<String, Object>>>() {});
-            
-            for (Map<String, Object> data : dataList) {
-                FinancialDataRecord record = parseFinancialRecord(data);
-                records.add(record);
-            }
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", tempFile, e.getMessage());
+        }
+    }
+    
+    private int processJsonFile(MultipartFile file, FinancialRecordSink sink, ParseDiagnostics diagnostics) {
+        try (InputStream in = file.getInputStream()) {
+            // Each record object is bound as soon as it has been read
+            RecordBinder binder = new RecordBinder();
+            int count = jsonEventReader.read(in, fields -> sink.acceptRow(binder.bindRow(fields)));
             
-            log.info("Processed {} records from JSON file", records.size());
+            reportParseProblems(binder, file);
+            recordDiagnostics(diagnostics, count, count, binder);
+            log.debug("Processed {} records from JSON file", count);
+            return count;
         } catch (Exception e) {
             throw new FileProcessingException("Error processing JSON file: " + e.getMessage(), e);
         }
-        
-        return records;
     }
     
-    private List<FinancialDataRecord> processTextFile(MultipartFile file) {
-        List<FinancialDataRecord> records = new ArrayList<>();
-        
-        try {
-            String content = new String(file.getBytes());
-            String[] lines = content.split("\n");
-            
-            if (lines.length == 0) {
+    private int processTextFile(MultipartFile file, FinancialRecordSink sink, ParseDiagnostics diagnostics) {
+        try (InputStream in = file.getInputStream()) {
+            // Tab, comma, pipe or semicolon, whichever splits the first lines consistently
+            CsvRecordEmitter emitter = new CsvRecordEmitter(sink);
+            if (csvEventReader.readSniffed(in, emitter) == 0) {
                 throw new FileProcessingException("Text file is empty");
             }
             
-            // Assume first line is header
-            String[] headers = lines[0].split("\t|,|\\|");
-            
-            for (int i = 1; i < lines.length; i++) {
-                String[] values = lines[i].split("\t|,|\\|");
-                Map<String, Object> fields = new LinkedHashMap<>();
-                
-                for (int j = 0; j < headers.length && j < values.length; j++) {
-                    fields.put(headers[j].trim(), values[j].trim());
-                }
-                
-                FinancialDataRecord record = parseFinancialRecord(fields);
-                records.add(record);
-            }
-            
-            log.info("Processed {} records from text file", records.size());
+            reportParseProblems(emitter.binder, file);
+            recordDiagnostics(diagnostics, emitter.rows, emitter.count, emitter.binder);
+            log.debug("Processed {} records from text file", emitter.count);
+            return emitter.count;
         } catch (Exception e) {
             throw new FileProcessingException("Error processing text file: " + e.getMessage(), e);
         }
-        
-        return records;
     }
     
-    private FinancialDataRecord parseFinancialRecord(Map<String, Object> fields) {
-        FinancialDataRecord record = new FinancialDataRecord(fields);
-        
-        // Try to extract common financial fields
-        fields.forEach((key, value) -> {
-            String lowerKey = key.toLowerCase();
-            String strValue = value != null ? value.toString() : "";
-            
-            if (lowerKey.contains("date")) {
-                try {
-                    record.setDate(parseDate(strValue));
-                } catch (Exception e) {
-                    log.debug("Could not parse date from field {}: {}", key, strValue);
-                }
-            }
-            
-            if (lowerKey.contains("amount") || lowerKey.contains("value") || 
-                lowerKey.contains("price") || lowerKey.contains("balance")) {
-                try {
-                    record.setAmount(parseAmount(strValue));
-                } catch (Exception e) {
-                    log.debug("Could not parse amount from field {}: {}", key, strValue);
-                }
-            }
-            
-            if (lowerKey.contains("description") || lowerKey.contains("note") || 
-                lowerKey.contains("memo")) {
-                record.setDescription(strValue);
-            }
-            
-            if (lowerKey.contains("category") || lowerKey.contains("type")) {
-                record.setCategory(strValue);
-            }
-            
-            if (lowerKey.contains("account")) {
-                record.setAccount(strValue);
-            }
-        });
-        
-        return record;
+    private static void recordDiagnostics(ParseDiagnostics diagnostics, long rowsRead, int recordCount,
+                                          RecordBinder binder) {
+        diagnostics.setRowsRead(diagnostics.getRowsRead() + rowsRead);
+        diagnostics.setRecordCount(diagnostics.getRecordCount() + recordCount);
+        diagnostics.setDateParseFailures(diagnostics.getDateParseFailures() + binder.getDateParseFailures());
+        diagnostics.setAmountParseFailures(diagnostics.getAmountParseFailures() + binder.getAmountParseFailures());
+        binder.getColumnFailures().forEach(diagnostics::addColumnFailures);
     }
     
-    private LocalDate parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return null;
+    /**
+     * Logs one warning per file for ambiguous date columns, one for ambiguous amount columns and one
+     * for cells that could not be parsed, naming each column with its failure count and sampled values
+     */
+    private void reportParseProblems(RecordBinder binder, MultipartFile file) {
+        List<String> ambiguous = binder.getAmbiguousDateColumns();
+        if (!ambiguous.isEmpty()) {
+            warnRateLimited("Date columns {} in {} fit both MM/dd/yyyy and dd/MM/yyyy, or their first values were "
+                + "read with a different layout than the rest; check dates such as 01/02/2026", 
+                ambiguous, file.getOriginalFilename());
         }
         
-        // Try common date formats
-        DateTimeFormatter[] formatters = {
-            DateTimeFormatter.ISO_LOCAL_DATE,
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-            DateTimeFormatter.ofPattern("MM-dd-yyyy")
-        };
+        List<String> ambiguousAmounts = binder.getAmbiguousAmountColumns();
+        if (!ambiguousAmounts.isEmpty()) {
+            warnRateLimited("Amount columns {} in {} fit both decimal points and decimal commas, or mix them; "
+                + "check values such as 1,234 or 12.345", ambiguousAmounts, file.getOriginalFilename());
+        }
         
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                return LocalDate.parse(dateStr.trim(), formatter);
-            } catch (Exception e) {
-                // Try next format
+        List<ColumnParseFailures> failures = binder.getColumnFailures();
+        if (!failures.isEmpty()) {
+            StringJoiner columns = new StringJoiner(", ");
+            for (ColumnParseFailures column : failures) {
+                columns.add(column.getColumn() + " (" + column.getKind().name().toLowerCase(Locale.ROOT) + ", "
+                    + column.getFailures() + " cells, e.g. " + column.getSamples() + ")");
             }
+            warnRateLimited("Could not parse {} date and {} amount cells in {}: {}", binder.getDateParseFailures(),
+                binder.getAmountParseFailures(), file.getOriginalFilename(), columns);
         }
-        
-        throw new IllegalArgumentException("Unable to parse date: " + dateStr);
     }
     
-    private BigDecimal parseAmount(String amountStr) {
-        if (amountStr == null || amountStr.isEmpty()) {
-            return null;
-        }
-        
-        // Remove currency symbols and whitespace
-        String cleaned = amountStr.replaceAll("[^\\d.-]", "").trim();
-        
-        if (cleaned.isEmpty()) {
-            return null;
+    /**
+     * Logs a warning about one file unless too many have been logged in the last minute. The next
+     * warning that is logged is preceded by the number that were not.
+     */
+    private void warnRateLimited(String message, Object... args) {
+        long suppressed = fileWarnings.tryAcquire();
+        if (suppressed == LogRateLimiter.DENIED) {
+            return;
         }
-        
-        try {
-            return new BigDecimal(cleaned);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Unable to parse amount: " + amountStr);
+        if (suppressed > 0) {
+            log.warn("{} warnings about files were not logged", suppressed);
         }
+        log.warn(message, args);
     }
 }
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+/**
+ * Receives financial data records one at a time as they are parsed
+ */
+@FunctionalInterface
+public interface FinancialRecordSink {
+
+    void accept(FinancialDataRecord record);
+
+    /**
+     * Receives a bound row, which is only valid during the call. Sinks that store or aggregate
+     * records read its values directly; by default it is materialized as a record.
+     */
+    default void acceptRow(RecordRow row) {
+        accept(row.toRecord());
+    }
+
+    /**
+     * Sink that passes each record or row to this sink and then to the other one
+     */
+    default FinancialRecordSink andThen(FinancialRecordSink other) {
+        FinancialRecordSink first = this;
+        return new FinancialRecordSink() {
+            @Override
+            public void accept(FinancialDataRecord record) {
+                first.accept(record);
+                other.accept(record);
+            }
+
+            @Override
+            public void acceptRow(RecordRow row) {
+                first.acceptRow(row);
+                other.acceptRow(row);
+            }
+        };
+    }
+}
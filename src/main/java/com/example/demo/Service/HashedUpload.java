@@ -0,0 +1,198 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Local copy of an uploaded file, with the SHA-256 of its content and its first bytes for type
+ * detection. Each part of the upload is read once.
+ * A multipart part that the container has spooled to disk is moved into place rather than copied,
+ * then scanned once through a {@link FileChannel} for the hash and the header; any other file is
+ * hashed while it is copied. The parsers then read the copy, and the ZIP and Excel readers, which
+ * need random access, open it in place. Closing the upload deletes the copy.
+ */
+@Slf4j
+public class HashedUpload implements MultipartFile, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MultipartFile source;
+    private final Path path;
+    private final long size;
+    private final String contentHash;
+    private final byte[] header;
+
+    private HashedUpload(MultipartFile source, Path path, ContentScan scan) {
+        this.source = source;
+        this.path = path;
+        this.size = scan.size;
+        this.contentHash = HexFormat.of().formatHex(scan.digest.digest());
+        this.header = Arrays.copyOf(scan.header, scan.headerLength);
+    }
+
+    public static HashedUpload copyOf(MultipartFile file) {
+        Path path = null;
+        try {
+            path = Files.createTempFile("financial-upload-", ".tmp");
+            ContentScan scan = new ContentScan();
+            if (moveTo(file, path)) {
+                scan.read(path);
+            } else {
+                scan.copy(file, path);
+            }
+            return new HashedUpload(file, path, scan);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            deleteQuietly(path);
+            throw new FileProcessingException("Error reading uploaded file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lets the multipart implementation put its content at the path, which the servlet container
+     * does by moving its spooled temp file. False if the file cannot be transferred.
+     */
+    private static boolean moveTo(MultipartFile file, Path path) throws IOException {
+        try {
+            file.transferTo(path.toFile());
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lower-case hex SHA-256 of the file content
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * The first {@value FileTypeDetector#HEADER_BYTES} bytes of the content, or all of it if it is shorter
+     */
+    public byte[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * The local copy; valid until the upload is closed
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String getName() {
+        return source.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return source.getOriginalFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return source.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void close() {
+        deleteQuietly(path);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete upload copy {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Hash, size and header of the content, fed one buffer at a time
+     */
+    private static final class ContentScan {
+        private final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        private final byte[] header = new byte[FileTypeDetector.HEADER_BYTES];
+        private int headerLength;
+        private long size;
+
+        private ContentScan() throws NoSuchAlgorithmException {
+        }
+
+        void read(Path path) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    update(buffer.array(), buffer.limit());
+                    buffer.clear();
+                }
+            }
+        }
+
+        void copy(MultipartFile file, Path path) throws IOException {
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = Files.newOutputStream(path)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    update(buffer, read);
+                }
+            }
+        }
+
+        private void update(byte[] bytes, int length) {
+            digest.update(bytes, 0, length);
+            if (headerLength < header.length) {
+                int copied = Math.min(length, header.length - headerLength);
+                System.arraycopy(bytes, 0, header, headerLength, copied);
+                headerLength += copied;
+            }
+            size += length;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileProcessingException;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming JSON reader built on the Jackson token stream.
+ * Records are bound one object at a time, so memory does not grow with the number of records.
+ * Accepted layouts are an array of record objects, an object wrapping such arrays under a
+ * conventional name ({"transactions": [...]}), and a sequence of top-level values such as JSON Lines, where each
+ * value is itself an array, a wrapper or a single record object.
+ */
+@Component
+public class JsonEventReader {
+
+    /**
+     * Receives the record objects in document order
+     */
+    @FunctionalInterface
+    public interface ObjectHandler {
+        void object(Map<String, Object> fields);
+    }
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {};
+
+    /**
+     * Field names, compared without case, under which an object wraps its records. Arrays under other
+     * names are fields of a record, such as the splits of a transaction.
+     */
+    private static final Set<String> WRAPPER_FIELDS = Set.of("transactions", "records", "data", "entries", "rows", "results");
+
+    private final ObjectMapper objectMapper;
+
+    public JsonEventReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return number of records handed to the handler
+     */
+    public int read(InputStream in, ObjectHandler handler) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new FileProcessingException("JSON file is empty");
+            }
+            int count = 0;
+            for (; token != null; token = parser.nextToken()) {
+                count += switch (token) {
+                    case START_ARRAY -> readArray(parser, handler);
+                    case START_OBJECT -> readObject(parser, handler);
+                    default -> throw new JsonParseException(parser,
+                        "Expected an array or object of records but found " + token);
+                };
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads the record objects of an array whose start has been read
+     */
+    private int readArray(JsonParser parser, ObjectHandler handler) throws IOException {
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a record object in the array but found " + token);
+            }
+            handler.object(objectMapper.readValue(parser, RECORD_TYPE));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads a top-level object whose start has been read. An object with a wrapper field
+     * ({@link #WRAPPER_FIELDS}) holding an array of objects, or an empty array, wraps records: the
+     * records of its wrapper arrays are read and its other fields are skipped. An object that has a
+     * date or an amount of its own before the array, or no wrapper array at all, is a record itself,
+     * nested arrays and objects included. Deciding at the array keeps wrapped records streaming.
+     */
+    private int readObject(JsonParser parser, ObjectHandler handler) throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        boolean wrapper = false;
+        boolean record = false;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_ARRAY && !record && isWrapperField(name)) {
+                JsonToken first = parser.nextToken();
+                if (first == JsonToken.START_OBJECT) {
+                    wrapper = true;
+                    handler.object(objectMapper.readValue(parser, RECORD_TYPE));
+                    count += 1 + readArray(parser, handler);
+                } else if (first == JsonToken.END_ARRAY) {
+                    wrapper = true;
+                } else {
+                    List<Object> values = readRemainingValues(parser, first);
+                    if (!wrapper) {
+                        fields.put(name, values);
+                    }
+                }
+            } else if (wrapper) {
+                parser.skipChildren();
+            } else {
+                // A scalar the binder reads as a date or an amount makes this object a record
+                record |= value.isScalarValue() && RecordBindingPlan.isDateOrAmount(name);
+                fields.put(name, objectMapper.readValue(parser, Object.class));
+            }
+        }
+        if (!wrapper) {
+            handler.object(fields);
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isWrapperField(String name) {
+        return WRAPPER_FIELDS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Reads the values of an array from its first element on
+     */
+    private List<Object> readRemainingValues(JsonParser parser, JsonToken first) throws IOException {
+        List<Object> values = new ArrayList<>();
+        for (JsonToken token = first; token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            values.add(objectMapper.readValue(parser, Object.class));
+        }
+        return values;
+    }
+}
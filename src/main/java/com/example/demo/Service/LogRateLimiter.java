@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets a number of log messages through per interval and counts the ones it holds back, so that a
+ * burst of similar warnings (a ZIP archive of bad files, a flood of bad uploads) costs a counter
+ * increment each instead of a log line. Thread-safe.
+ */
+final class LogRateLimiter {
+
+    /** Returned by {@link #tryAcquire()} when the message should not be logged */
+    static final long DENIED = -1;
+
+    private final int permits;
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private long windowStart;
+    private int used;
+    private long suppressed;
+
+    LogRateLimiter(int permits, Duration interval) {
+        this(permits, interval, System::nanoTime);
+    }
+
+    LogRateLimiter(int permits, Duration interval, LongSupplier nanoClock) {
+        this.permits = permits;
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a permit to log a message
+     *
+     * @return {@link #DENIED} if the interval's permits are used up, otherwise the number of messages
+     *         held back since the last one that was let through
+     */
+    synchronized long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        if (now - windowStart >= intervalNanos) {
+            windowStart = now;
+            used = 0;
+        }
+        if (used >= permits) {
+            suppressed++;
+            return DENIED;
+        }
+        used++;
+        long held = suppressed;
+        suppressed = 0;
+        return held;
+    }
+}
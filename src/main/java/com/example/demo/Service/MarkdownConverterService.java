@@ -1,16 +1,27 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ColumnParseFailures;
 import com.example.demo.dto.FinancialDataRecord;
+import com.example.demo.dto.ParseDiagnostics;
+import com.example.demo.dto.ReportOptions;
 import com.example.demo.dto.ZipFileInfo;
 import com.example.demo.dto.ZipProcessingResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * Service for converting financial data to markdown format
@@ -19,173 +30,463 @@ import java.util.stream.Collectors;
 @Service
 public class MarkdownConverterService {
     
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // Rough size of one record's table row and details, used to pre-size in-memory reports
+    private static final int ESTIMATED_CHARS_PER_RECORD = 512;
+    private static final int MAX_PRESIZED_CHARS = 64 * 1024 * 1024;
     
-    public String convertToMarkdown(List<FinancialDataRecord> records, String filename) {
+    public String convertToMarkdown(Collection<FinancialDataRecord> records, String filename) {
+        StringWriter markdown = new StringWriter(initialCapacity(records != null ? records.size() : 0));
+        try {
+            writeMarkdown(records, filename, markdown);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return markdown.toString();
+    }
+    
+    /**
+     * Renders the report section by section into the writer. Every section reads the records
+     * batch by batch from their columns; a {@link RecordBatch} or {@link RecordSpool} is used as is,
+     * so a spool keeps heap usage flat, while any other collection is copied into a batch first.
+     */
+    public void writeMarkdown(Collection<FinancialDataRecord> records, String filename, Writer markdown)
+            throws IOException {
+        writeMarkdown(records, null, filename, markdown);
+    }
+    
+    /**
+     * Renders the report using summary metrics that were aggregated while the records were parsed.
+     * If the summary is null it is aggregated from the records first.
+     */
+    public void writeMarkdown(Collection<FinancialDataRecord> records, SummaryAggregator summary,
+                              String filename, Writer markdown) throws IOException {
+        writeMarkdown(records, summary, filename, ReportOptions.FULL, markdown);
+    }
+    
+    /**
+     * Renders the sections of the report that the options' profile selects
+     */
+    public void writeMarkdown(Collection<FinancialDataRecord> records, SummaryAggregator summary,
+                              String filename, ReportOptions options, Writer markdown) throws IOException {
+        writeMarkdown(records, summary, null, filename, options, markdown);
+    }
+    
+    /**
+     * Renders the report with a section listing the columns whose cells could not be parsed,
+     * if the parse diagnostics have any
+     */
+    public void writeMarkdown(Collection<FinancialDataRecord> records, SummaryAggregator summary,
+                              ParseDiagnostics parsing, String filename, ReportOptions options,
+                              Writer markdown) throws IOException {
+        MarkdownWriter md = new MarkdownWriter(markdown);
         if (records == null || records.isEmpty()) {
-            return generateEmptyMarkdown(filename);
+            writeEmptyMarkdown(filename, md);
+            return;
         }
         
-        StringBuilder markdown = new StringBuilder();
+        BatchedRecords batched = batched(records);
+        if (summary == null) {
+            summary = SummaryAggregator.of(batched);
+        }
         
         // Header
-        markdown.append("# Financial Data Report\n\n");
-        markdown.append(String.format("**Source File:** %s\n\n", filename));
-        markdown.append(String.format("**Total Records:** %d\n\n", records.size()));
-        markdown.append("---\n\n");
+        md.text("# Financial Data Report\n\n");
+        md.text("**Source File:** ").text(filename).text("\n\n");
+        md.text("**Total Records:** ").number(records.size()).text("\n\n");
+        writeProfile(options, md);
+        md.text("---\n\n");
         
         // Summary section
-        markdown.append("## Summary\n\n");
-        markdown.append(generateSummary(records));
-        markdown.append("\n---\n\n");
-        
-        // Data table
-        markdown.append("## Financial Records\n\n");
-        markdown.append(generateTable(records));
-        markdown.append("\n");
+        md.text("## Summary\n\n");
+        writeSummary(summary, md);
+        if (hasParseFailures(parsing)) {
+            md.text("\n## Parse Warnings\n\n");
+            writeParseFailures(parsing, md);
+        }
+        md.text("\n---\n\n");
         
-        // Detailed records section
-        markdown.append("## Detailed Records\n\n");
-        for (int i = 0; i < records.size(); i++) {
-            markdown.append(generateRecordDetails(records.get(i), i + 1));
-            markdown.append("\n");
+        switch (options.getProfile()) {
+            case SUMMARY -> {
+                // The summary is the whole report
+            }
+            case TOP, SAMPLE -> writeSelection(batched, records.size(), options, md);
+            case TABLE, FULL -> {
+                // Data table
+                md.text("## Financial Records\n\n");
+                writeTable(batched, records.size(), md);
+                md.text("\n");
+                
+                // Detailed records section
+                if (options.getProfile() == ReportOptions.Profile.FULL) {
+                    md.text("## Detailed Records\n\n");
+                    writeDetails(batched, records.size(), options, md);
+                }
+            }
         }
         
         log.info("Converted {} records to markdown format", records.size());
-        return markdown.toString();
     }
     
     public String convertZipToMarkdown(ZipProcessingResult zipResult, String zipFilename) {
-        StringBuilder markdown = new StringBuilder();
+        StringWriter markdown = new StringWriter(initialCapacity(zipResult.getAllRecords().size()));
+        try {
+            writeZipMarkdown(zipResult, zipFilename, markdown);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return markdown.toString();
+    }
+    
+    public void writeZipMarkdown(ZipProcessingResult zipResult, String zipFilename, Writer markdown)
+            throws IOException {
+        writeZipMarkdown(zipResult, zipFilename, ReportOptions.FULL, markdown);
+    }
+    
+    /**
+     * Renders the sections of the ZIP report that the options' profile selects. Detailed records
+     * are only part of a full ZIP report when they are paged; the pages run across the files in
+     * archive order.
+     */
+    public void writeZipMarkdown(ZipProcessingResult zipResult, String zipFilename, ReportOptions options,
+                                 Writer markdown) throws IOException {
+        Collection<FinancialDataRecord> allRecords = zipResult.getAllRecords();
+        MarkdownWriter md = new MarkdownWriter(markdown);
         
         // Header
-        markdown.append("# Financial Data Report - ZIP Archive\n\n");
-        markdown.append(String.format("**Source ZIP File:** %s\n\n", zipFilename));
-        markdown.append(String.format("**Total Files in Archive:** %d\n\n", zipResult.getTotalFiles()));
-        markdown.append(String.format("**Successfully Processed:** %d\n\n", zipResult.getSuccessfullyProcessedFiles()));
-        markdown.append(String.format("**Total Records:** %d\n\n", zipResult.getAllRecords().size()));
-        markdown.append("---\n\n");
+        md.text("# Financial Data Report - ZIP Archive\n\n");
+        md.text("**Source ZIP File:** ").text(zipFilename).text("\n\n");
+        md.text("**Total Files in Archive:** ").number(zipResult.getTotalFiles()).text("\n\n");
+        md.text("**Successfully Processed:** ").number(zipResult.getSuccessfullyProcessedFiles()).text("\n\n");
+        md.text("**Total Records:** ").number(allRecords.size()).text("\n\n");
+        writeProfile(options, md);
+        md.text("---\n\n");
         
         // ZIP File Contents Summary
-        markdown.append("## ZIP Archive Contents\n\n");
-        markdown.append("| File Name | Type | Records | Status |\n");
-        markdown.append("|-----------|------|---------|--------|\n");
+        md.text("## ZIP Archive Contents\n\n");
+        md.text("| File Name | Type | Records | Status |\n");
+        md.text("|-----------|------|---------|--------|\n");
         
         for (ZipFileInfo fileInfo : zipResult.getFileInfos()) {
-            String status = fileInfo.isProcessed() ? "✓ Success" : "✗ Failed";
+            md.text("| ").text(fileInfo.getFilename())
+                .text(" | ").text(fileInfo.getFileType() != null ? fileInfo.getFileType() : "Unknown")
+                .text(" | ").number(fileInfo.getRecordCount())
+                .text(" | ").text(fileInfo.isProcessed() ? "✓ Success" : "✗ Failed");
             if (fileInfo.getErrorMessage() != null) {
-                status += " (" + fileInfo.getErrorMessage() + ")";
+                md.text(" (").text(fileInfo.getErrorMessage()).text(")");
             }
-            markdown.append(String.format("| %s | %s | %d | %s |\n",
-                fileInfo.getFilename(),
-                fileInfo.getFileType() != null ? fileInfo.getFileType() : "Unknown",
-                fileInfo.getRecordCount(),
-                status));
+            md.text(" |\n");
         }
-        markdown.append("\n---\n\n");
+        md.text("\n---\n\n");
         
         // Overall Summary
-        if (!zipResult.getAllRecords().isEmpty()) {
-            markdown.append("## Combined Summary\n\n");
-            markdown.append(generateSummary(zipResult.getAllRecords()));
-            markdown.append("\n---\n\n");
+        if (!allRecords.isEmpty()) {
+            BatchedRecords batched = batched(allRecords);
             
-            // Combined Data Table
-            markdown.append("## All Financial Records\n\n");
-            markdown.append(generateTable(zipResult.getAllRecords()));
-            markdown.append("\n---\n\n");
+            md.text("## Combined Summary\n\n");
+            writeSummary(combinedSummary(zipResult, batched), md);
+            md.text("\n---\n\n");
             
-            // Records by File
-            markdown.append("## Records by File\n\n");
-            int recordIndex = 1;
-            for (ZipFileInfo fileInfo : zipResult.getFileInfos()) {
-                if (fileInfo.isProcessed() && fileInfo.getRecordCount() > 0) {
-                    markdown.append(String.format("### File: %s (%d records)\n\n", 
-                        fileInfo.getFilename(), fileInfo.getRecordCount()));
+            switch (options.getProfile()) {
+                case SUMMARY -> {
+                    // The combined summary is the whole report
+                }
+                case TOP, SAMPLE -> {
+                    writeSelection(batched, allRecords.size(), options, md);
+                    md.text("---\n\n");
+                }
+                case TABLE, FULL -> {
+                    // Combined Data Table
+                    md.text("## All Financial Records\n\n");
+                    writeTable(batched, allRecords.size(), md);
+                    md.text("\n---\n\n");
                     
-                    // Get records for this file (we'll need to track this)
-                    // For now, show a note that records are combined
-                    markdown.append(String.format("_Records from this file are included in the combined table above._\n\n"));
+                    if (options.getProfile() == ReportOptions.Profile.FULL && options.isPaged()) {
+                        md.text("## Detailed Records\n\n");
+                        writeDetails(batched, allRecords.size(), options, md);
+                        md.text("---\n\n");
+                    }
                 }
             }
+            
+            // Records by File
+            md.text("## Records by File\n\n");
+            writeFileSections(zipResult, batched, options, md);
         } else {
-            markdown.append("## No Records Processed\n\n");
-            markdown.append("No financial data records were successfully extracted from the ZIP archive.\n\n");
+            md.text("## No Records Processed\n\n");
+            md.text("No financial data records were successfully extracted from the ZIP archive.\n\n");
         }
         
-        log.info("Converted ZIP archive with {} files and {} total records to markdown format", 
-            zipResult.getTotalFiles(), zipResult.getAllRecords().size());
-        
-        return markdown.toString();
+        log.info("Converted ZIP archive with {} files and {} total records to markdown format",
+            zipResult.getTotalFiles(), allRecords.size());
     }
     
-    private String generateEmptyMarkdown(String filename) {
-        StringBuilder markdown = new StringBuilder();
-        markdown.append("# Financial Data Report\n\n");
-        markdown.append(String.format("**Source File:** %s\n\n", filename));
-        markdown.append("**Status:** No records found in the file.\n\n");
-        return markdown.toString();
+    /**
+     * Names the profile in the report header; the full, unpaged report has no such line
+     */
+    private void writeProfile(ReportOptions options, MarkdownWriter md) throws IOException {
+        if (options.getProfile() == ReportOptions.Profile.FULL && !options.isPaged()) {
+            return;
+        }
+        md.text("**Report Profile:** ");
+        switch (options.getProfile()) {
+            case FULL -> md.text("full, detailed records in pages of ").number(options.getPageSize());
+            case SUMMARY -> md.text("summary only");
+            case TABLE -> md.text("summary and records table");
+            case TOP -> md.text("top ").number(options.getLimit()).text(" records by amount");
+            case SAMPLE -> md.text("sample of ").number(options.getLimit()).text(" records");
+        }
+        md.text("\n\n");
     }
     
-    private String generateSummary(List<FinancialDataRecord> records) {
-        StringBuilder summary = new StringBuilder();
-        
-        // Calculate totals
-        BigDecimal totalAmount = records.stream()
-            .filter(r -> r.getAmount() != null)
-            .map(FinancialDataRecord::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        long recordsWithAmount = records.stream()
-            .filter(r -> r.getAmount() != null)
-            .count();
+    /**
+     * Table and details of the records chosen by the top or sample profile, numbered as in the full report
+     */
+    private void writeSelection(BatchedRecords records, int recordCount, ReportOptions options, MarkdownWriter md)
+            throws IOException {
+        RecordSelection selection = options.getProfile() == ReportOptions.Profile.TOP
+            ? RecordSelection.largestAmounts(records, options.getLimit())
+            : RecordSelection.sample(records, options.getLimit());
+        RecordBatch selected = selection.getRecords();
+        int[] recordNumbers = selection.getRecordNumbers();
+        
+        if (options.getProfile() == ReportOptions.Profile.TOP) {
+            md.text("## Top ").number(selected.size()).text(" Records by Amount\n\n");
+        } else {
+            md.text("## Sampled Records (").number(selected.size()).text(" of ").number(recordCount).text(")\n\n");
+        }
+        writeTable(selected, selected.size(), recordNumbers, md);
+        md.text("\n");
+        
+        md.text("## Detailed Records\n\n");
+        List<String> sortedFields = selected.getFieldNames().stream().sorted().toList();
+        int[] fieldIds = fieldIds(selected, sortedFields);
+        for (int row = 0; row < selected.size(); row++) {
+            writeRecordDetails(selected, row, recordNumbers[row], sortedFields, fieldIds, md);
+            md.text("\n");
+        }
+    }
+    
+    /**
+     * Detailed records of the requested page, or all of them if the options are not paged
+     */
+    private void writeDetails(BatchedRecords records, int recordCount, ReportOptions options, MarkdownWriter md)
+            throws IOException {
+        long first = options.isPaged() ? (long) (options.getPage() - 1) * options.getPageSize() : 0;
+        long last = options.isPaged() ? Math.min(first + options.getPageSize(), recordCount) : recordCount;
+        
+        List<String> sortedFields = records.getFieldNames().stream().sorted().toList();
+        long offset = 0;
+        for (RecordBatch batch : records.batches()) {
+            if (offset >= last) {
+                break;
+            }
+            if (offset + batch.size() > first) {
+                int[] fieldIds = fieldIds(batch, sortedFields);
+                int from = (int) Math.max(first - offset, 0);
+                int to = (int) Math.min(last - offset, batch.size());
+                for (int row = from; row < to; row++) {
+                    writeRecordDetails(batch, row, (int) (offset + row + 1), sortedFields, fieldIds, md);
+                    md.text("\n");
+                }
+            }
+            offset += batch.size();
+        }
         
-        long recordsWithDate = records.stream()
-            .filter(r -> r.getDate() != null)
-            .count();
+        if (options.isPaged()) {
+            long pages = (recordCount + options.getPageSize() - 1) / options.getPageSize();
+            if (first < recordCount) {
+                md.text("_Detailed records ").number(first + 1).text(" to ").number(last)
+                    .text(" of ").number(recordCount)
+                    .text(", page ").number(options.getPage()).text(" of ").number(pages).text("._\n\n");
+            } else {
+                md.text("_No detailed records on page ").number(options.getPage())
+                    .text("; there are ").number(pages).text(" pages._\n\n");
+            }
+        }
+    }
+    
+    private void writeEmptyMarkdown(String filename, MarkdownWriter md) throws IOException {
+        md.text("# Financial Data Report\n\n");
+        md.text("**Source File:** ").text(filename).text("\n\n");
+        md.text("**Status:** No records found in the file.\n\n");
+    }
+    
+    void writeSummary(SummaryAggregator aggregate, MarkdownWriter md) throws IOException {
+        BigDecimal totalAmount = aggregate.getTotal();
         
-        summary.append("| Metric | Value |\n");
-        summary.append("|--------|-------|\n");
-        summary.append(String.format("| Total Records | %d |\n", records.size()));
-        summary.append(String.format("| Records with Amount | %d |\n", recordsWithAmount));
-        summary.append(String.format("| Records with Date | %d |\n", recordsWithDate));
+        md.text("| Metric | Value |\n");
+        md.text("|--------|-------|\n");
+        md.text("| Total Records | ").number(aggregate.getCount()).text(" |\n");
+        md.text("| Records with Amount | ").number(aggregate.getRecordsWithAmount()).text(" |\n");
+        md.text("| Records with Date | ").number(aggregate.getRecordsWithDate()).text(" |\n");
         
         if (totalAmount.compareTo(BigDecimal.ZERO) != 0) {
-            summary.append(String.format("| Total Amount | %s |\n", formatCurrency(totalAmount)));
-            BigDecimal average = totalAmount.divide(BigDecimal.valueOf(recordsWithAmount), 2, 
-                java.math.RoundingMode.HALF_UP);
-            summary.append(String.format("| Average Amount | %s |\n", formatCurrency(average)));
+            md.text("| Total Amount | ").currency(totalAmount).text(" |\n");
+            md.text("| Average Amount | ").currency(aggregate.getAverage()).text(" |\n");
+            md.text("| Minimum Amount | ").currency(aggregate.getMinimum()).text(" |\n");
+            md.text("| Maximum Amount | ").currency(aggregate.getMaximum()).text(" |\n");
         }
         
-        // Category breakdown
-        Map<String, Long> categoryCount = records.stream()
-            .filter(r -> r.getCategory() != null && !r.getCategory().isEmpty())
-            .collect(Collectors.groupingBy(FinancialDataRecord::getCategory, Collectors.counting()));
+        // Category breakdown. Ties in the count are listed in the order of a HashMap filled in
+        // first-seen order, which is the order this breakdown has always used.
+        Map<String, SummaryAggregator.Totals> categories = new HashMap<>(aggregate.getCategories());
+        if (!categories.isEmpty()) {
+            md.text("\n### Categories\n\n");
+            md.text("| Category | Count | Total |\n");
+            md.text("|----------|-------|-------|\n");
+            writeGroups(categories, md);
+        }
         
-        if (!categoryCount.isEmpty()) {
-            summary.append("\n### Categories\n\n");
-            summary.append("| Category | Count |\n");
-            summary.append("|----------|-------|\n");
-            categoryCount.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .forEach(entry -> summary.append(String.format("| %s | %d |\n", 
-                    entry.getKey(), entry.getValue())));
+        // Account breakdown; ties are listed in first-seen order
+        if (!aggregate.getAccounts().isEmpty()) {
+            md.text("\n### Accounts\n\n");
+            md.text("| Account | Count | Total |\n");
+            md.text("|---------|-------|-------|\n");
+            writeGroups(aggregate.getAccounts(), md);
         }
+    }
+    
+    private void writeGroups(Map<String, SummaryAggregator.Totals> groups, MarkdownWriter md) throws IOException {
+        List<Map.Entry<String, SummaryAggregator.Totals>> sorted = groups.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, SummaryAggregator.Totals> e) -> e.getValue().getCount())
+                .reversed())
+            .toList();
+        for (Map.Entry<String, SummaryAggregator.Totals> entry : sorted) {
+            md.text("| ").text(entry.getKey())
+                .text(" | ").number(entry.getValue().getCount())
+                .text(" | ").currency(entry.getValue().getTotal()).text(" |\n");
+        }
+    }
+    
+    private static boolean hasParseFailures(ParseDiagnostics parsing) {
+        return parsing != null && !parsing.getColumnFailures().isEmpty();
+    }
+    
+    /**
+     * Table of the columns whose cells could not be parsed, with the number of such cells and a few of their values
+     */
+    private static void writeParseFailures(ParseDiagnostics parsing, MarkdownWriter md) throws IOException {
+        md.text("| Column | Parsed As | Unparsed Cells | Sample Values |\n");
+        md.text("|--------|-----------|----------------|---------------|\n");
+        for (ColumnParseFailures failures : parsing.getColumnFailures()) {
+            md.text("| ").cell(failures.getColumn())
+                .text(" | ").text(failures.getKind() == ColumnParseFailures.Kind.DATE ? "Date" : "Amount")
+                .text(" | ").number(failures.getFailures())
+                .text(" | ");
+            for (int i = 0; i < failures.getSamples().size(); i++) {
+                if (i > 0) {
+                    md.text(", ");
+                }
+                md.text('"').cell(failures.getSamples().get(i)).text('"');
+            }
+            md.text(" |\n");
+        }
+    }
+    
+    /**
+     * Combined summary of a ZIP archive: the per-file summaries merged in archive order, or the
+     * records aggregated again if a processed file has no summary
+     */
+    private SummaryAggregator combinedSummary(ZipProcessingResult zipResult, BatchedRecords allRecords) {
+        SummaryAggregator combined = new SummaryAggregator();
+        for (ZipFileInfo fileInfo : zipResult.getFileInfos()) {
+            if (!fileInfo.isProcessed()) {
+                continue;
+            }
+            if (fileInfo.getSummary() == null) {
+                return SummaryAggregator.of(allRecords);
+            }
+            combined.merge(fileInfo.getSummary());
+        }
+        return combined;
+    }
+    
+    /**
+     * Summary and, for the table and full profiles, records table of each processed file. A file's
+     * records are its range of the archive's records, so the tables of all files are written in one
+     * pass over them, numbered as in the combined table.
+     */
+    private void writeFileSections(ZipProcessingResult zipResult, BatchedRecords allRecords, ReportOptions options,
+                                   MarkdownWriter md) throws IOException {
+        boolean tables = options.getProfile() == ReportOptions.Profile.TABLE
+            || options.getProfile() == ReportOptions.Profile.FULL;
+        Iterator<RecordBatch> batches = tables ? allRecords.batches().iterator() : null;
+        RecordBatch batch = null;
+        // Index of the current batch's first record
+        long batchStart = 0;
         
-        return summary.toString();
+        for (ZipFileInfo fileInfo : zipResult.getFileInfos()) {
+            if (!fileInfo.isProcessed() || fileInfo.getRecordCount() == 0) {
+                continue;
+            }
+            md.text("### File: ").text(fileInfo.getFilename())
+                .text(" (").number(fileInfo.getRecordCount()).text(" records)\n\n");
+            if (fileInfo.getSummary() != null) {
+                writeSummary(fileInfo.getSummary(), md);
+                md.text("\n");
+            }
+            if (hasParseFailures(fileInfo.getDiagnostics())) {
+                md.text("#### Parse Warnings\n\n");
+                writeParseFailures(fileInfo.getDiagnostics(), md);
+                md.text("\n");
+            }
+            if (!tables) {
+                continue;
+            }
+            
+            List<String> displayFields = displayFields(fileInfo.getFieldNames() != null
+                ? fileInfo.getFieldNames() : allRecords.getFieldNames());
+            md.text("#### Records\n\n");
+            writeTableHeader(displayFields, md);
+            long first = fileInfo.getFirstRecord();
+            long last = first + fileInfo.getRecordCount();
+            long next = first;
+            while (next < last) {
+                while (batch == null || batchStart + batch.size() <= next) {
+                    if (batch != null) {
+                        batchStart += batch.size();
+                    }
+                    batch = batches.next();
+                }
+                int to = (int) Math.min(last - batchStart, batch.size());
+                writeTableRows(batch, (int) (next - batchStart), to, displayFields, null, (int) (next + 1), md);
+                next = batchStart + to;
+            }
+            md.text("\n");
+        }
+    }
+    
+    void writeTable(BatchedRecords records, int recordCount, MarkdownWriter md) throws IOException {
+        writeTable(records, recordCount, null, md);
     }
     
-    private String generateTable(List<FinancialDataRecord> records) {
-        if (records.isEmpty()) {
-            return "No records available.";
+    /**
+     * Writes the records table, numbering the rows with the given record numbers or, if null, from 1
+     */
+    private void writeTable(BatchedRecords records, int recordCount, int[] recordNumbers, MarkdownWriter md)
+            throws IOException {
+        if (recordCount == 0) {
+            md.text("No records available.");
+            return;
         }
         
-        StringBuilder table = new StringBuilder();
+        List<String> displayFields = displayFields(records.getFieldNames());
+        writeTableHeader(displayFields, md);
         
+        // Table rows
+        int index = 1;
+        for (RecordBatch batch : records.batches()) {
+            writeTableRows(batch, 0, batch.size(), displayFields, recordNumbers, index, md);
+            index += batch.size();
+        }
+    }
+    
+    /**
+     * Columns of a records table: the first ten field names in name order, plus a date and an amount field
+     */
+    private static List<String> displayFields(List<String> fieldNames) {
         // Get all unique field names from all records
-        Set<String> allFields = records.stream()
-            .flatMap(r -> r.getFields().keySet().stream())
-            .collect(java.util.stream.Collectors.toSet());
+        Set<String> allFields = new HashSet<>(fieldNames);
         
         List<String> fieldList = allFields.stream()
             .sorted()
@@ -203,102 +504,131 @@ public class MarkdownConverterService {
         if (!displayFields.contains("Amount") && fieldList.stream().anyMatch(f -> f.toLowerCase().contains("amount"))) {
             displayFields.add(fieldList.stream().filter(f -> f.toLowerCase().contains("amount")).findFirst().orElse(""));
         }
-        
+        return displayFields;
+    }
+    
+    private static void writeTableHeader(List<String> displayFields, MarkdownWriter md) throws IOException {
         // Table header
-        table.append("| # | ");
+        md.text("| # | ");
         for (String field : displayFields) {
-            table.append(escapeMarkdown(field)).append(" | ");
+            md.cell(field).text(" | ");
         }
-        table.append("\n");
+        md.text("\n");
         
         // Table separator
-        table.append("|");
+        md.text("|");
         for (int i = 0; i <= displayFields.size(); i++) {
-            table.append("---|");
+            md.text("---|");
+        }
+        md.text("\n");
+    }
+    
+    /**
+     * Writes the table rows of a batch's rows [from, to). Row {@code from} is record number {@code index},
+     * unless record numbers are given, which are then looked up by {@code index - 1}.
+     */
+    private static void writeTableRows(RecordBatch batch, int from, int to, List<String> displayFields,
+                                       int[] recordNumbers, int index, MarkdownWriter md) throws IOException {
+        // Special formatting is decided once per column rather than per cell
+        boolean[] dateFields = new boolean[displayFields.size()];
+        boolean[] amountFields = new boolean[displayFields.size()];
+        for (int f = 0; f < displayFields.size(); f++) {
+            dateFields[f] = displayFields.get(f).toLowerCase().contains("date");
+            amountFields[f] = displayFields.get(f).toLowerCase().contains("amount");
         }
-        table.append("\n");
         
-        // Table rows
-        for (int i = 0; i < records.size(); i++) {
-            FinancialDataRecord record = records.get(i);
-            table.append("| ").append(i + 1).append(" | ");
+        int[] fieldIds = fieldIds(batch, displayFields);
+        for (int row = from; row < to; row++) {
+            md.text("| ").number(recordNumbers != null ? recordNumbers[index - 1] : index).text(" | ");
+            index++;
             
-            for (String field : displayFields) {
-                Object value = record.getFields().get(field);
-                String displayValue = value != null ? value.toString() : "";
-                
+            for (int f = 0; f < fieldIds.length; f++) {
                 // Format special fields
-                if (field.toLowerCase().contains("date") && record.getDate() != null) {
-                    displayValue = record.getDate().format(DATE_FORMATTER);
-                } else if (field.toLowerCase().contains("amount") && record.getAmount() != null) {
-                    displayValue = formatCurrency(record.getAmount());
+                if (dateFields[f] && batch.hasDate(row)) {
+                    md.date(batch.getDate(row));
+                } else if (amountFields[f] && batch.hasAmount(row)) {
+                    writeAmount(batch, row, md);
+                } else {
+                    md.cell(batch.getFieldValue(fieldIds[f], row));
                 }
-                
-                table.append(escapeMarkdown(displayValue)).append(" | ");
+                md.text(" | ");
             }
-            table.append("\n");
+            md.text("\n");
         }
-        
-        return table.toString();
     }
     
-    private String generateRecordDetails(FinancialDataRecord record, int index) {
-        StringBuilder details = new StringBuilder();
-        
-        details.append(String.format("### Record #%d\n\n", index));
+    private void writeRecordDetails(RecordBatch batch, int row, int index,
+                                    List<String> sortedFields, int[] fieldIds, MarkdownWriter md) throws IOException {
+        md.text("### Record #").number(index).text("\n\n");
         
         // Standard fields
-        if (record.getDate() != null) {
-            details.append(String.format("- **Date:** %s\n", record.getDate().format(DATE_FORMATTER)));
+        if (batch.hasDate(row)) {
+            md.text("- **Date:** ").date(batch.getDate(row)).text("\n");
         }
         
-        if (record.getAmount() != null) {
-            details.append(String.format("- **Amount:** %s\n", formatCurrency(record.getAmount())));
+        if (batch.hasAmount(row)) {
+            md.text("- **Amount:** ");
+            writeAmount(batch, row, md);
+            md.text("\n");
         }
         
-        if (record.getDescription() != null && !record.getDescription().isEmpty()) {
-            details.append(String.format("- **Description:** %s\n", escapeMarkdown(record.getDescription())));
+        String description = batch.getDescription(row);
+        if (description != null && !description.isEmpty()) {
+            md.text("- **Description:** ").cell(description).text("\n");
         }
         
-        if (record.getCategory() != null && !record.getCategory().isEmpty()) {
-            details.append(String.format("- **Category:** %s\n", escapeMarkdown(record.getCategory())));
+        String category = batch.getCategory(row);
+        if (category != null && !category.isEmpty()) {
+            md.text("- **Category:** ").cell(category).text("\n");
         }
         
-        if (record.getAccount() != null && !record.getAccount().isEmpty()) {
-            details.append(String.format("- **Account:** %s\n", escapeMarkdown(record.getAccount())));
+        String account = batch.getAccount(row);
+        if (account != null && !account.isEmpty()) {
+            md.text("- **Account:** ").cell(account).text("\n");
         }
         
-        // All fields
-        if (!record.getFields().isEmpty()) {
-            details.append("\n**All Fields:**\n\n");
-            details.append("| Field | Value |\n");
-            details.append("|-------|-------|\n");
+        // All fields, in field name order
+        if (batch.hasFields(row)) {
+            md.text("\n**All Fields:**\n\n");
+            md.text("| Field | Value |\n");
+            md.text("|-------|-------|\n");
             
-            record.getFields().entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> {
-                    String value = entry.getValue() != null ? entry.getValue().toString() : "";
-                    details.append(String.format("| %s | %s |\n", 
-                        escapeMarkdown(entry.getKey()), escapeMarkdown(value)));
-                });
+            for (int f = 0; f < fieldIds.length; f++) {
+                if (batch.hasField(fieldIds[f], row)) {
+                    md.text("| ").cell(sortedFields.get(f))
+                        .text(" | ").cell(batch.getFieldValue(fieldIds[f], row)).text(" |\n");
+                }
+            }
         }
-        
-        return details.toString();
     }
     
-    private String formatCurrency(BigDecimal amount) {
-        if (amount == null) {
-            return "N/A";
+    /**
+     * Writes the amount at a row straight from the minor-unit column when it is held there
+     */
+    private static void writeAmount(RecordBatch batch, int row, MarkdownWriter md) throws IOException {
+        if (batch.isMinorUnitAmount(row)) {
+            md.currencyMinorUnits(batch.getAmountMinorUnits(row));
+        } else {
+            md.currency(batch.getAmount(row));
         }
-        return String.format("$%,.2f", amount);
     }
     
-    private String escapeMarkdown(String text) {
-        if (text == null) {
-            return "";
+    private static BatchedRecords batched(Collection<FinancialDataRecord> records) {
+        return records instanceof BatchedRecords batched ? batched : RecordBatch.copyOf(records);
+    }
+    
+    /**
+     * Ids of the named fields in a batch's header dictionary; -1 for names the batch does not have
+     */
+    private static int[] fieldIds(RecordBatch batch, List<String> fieldNames) {
+        int[] ids = new int[fieldNames.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = batch.fieldId(fieldNames.get(i));
         }
-        return text.replace("|", "\\|")
-                  .replace("\n", " ")
-                  .replace("\r", " ");
+        return ids;
+    }
+    
+    private static int initialCapacity(int recordCount) {
+        return (int) Math.min(1024L + (long) recordCount * ESTIMATED_CHARS_PER_RECORD, MAX_PRESIZED_CHARS);
     }
 }
@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Appends markdown to a writer without going through {@link String#format} or intermediate strings.
+ * Numbers, currency and dates are formatted by hand into a reused buffer. The output matches the
+ * {@code "%d"}, {@code "$%,.2f"} (half-up rounding, comma grouping, dot decimal separator, minus
+ * after the dollar sign) and {@code yyyy-MM-dd} patterns the report has always used.
+ * Not thread-safe; use one per report.
+ */
+public class MarkdownWriter {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int CENTS_SCALE = 2;
+
+    private final Writer out;
+    // Large enough for "$-" and a grouped long with cents
+    private final char[] buffer = new char[40];
+
+    public MarkdownWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes text as is; null is written as "null", as {@code %s} would
+     */
+    public MarkdownWriter text(String text) throws IOException {
+        out.write(text != null ? text : "null");
+        return this;
+    }
+
+    public MarkdownWriter text(char c) throws IOException {
+        out.write(c);
+        return this;
+    }
+
+    public MarkdownWriter number(long value) throws IOException {
+        int start = formatLong(value, buffer.length, false);
+        out.write(buffer, start, buffer.length - start);
+        return this;
+    }
+
+    /**
+     * Writes a table cell value with pipes escaped and line breaks replaced by spaces; null is empty
+     */
+    public MarkdownWriter cell(String text) throws IOException {
+        if (text == null) {
+            return this;
+        }
+        int length = text.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '|' || c == '\n' || c == '\r') {
+                out.write(text, from, i - from);
+                out.write(c == '|' ? "\\|" : " ");
+                from = i + 1;
+            }
+        }
+        out.write(text, from, length - from);
+        return this;
+    }
+
+    /**
+     * Writes an amount as dollars and cents, or "N/A" for null
+     */
+    public MarkdownWriter currency(BigDecimal amount) throws IOException {
+        if (amount == null) {
+            out.write("N/A");
+            return this;
+        }
+        BigDecimal rounded = amount.setScale(CENTS_SCALE, RoundingMode.HALF_UP);
+        if (rounded.unscaledValue().bitLength() < Long.SIZE) {
+            // The sign comes from the unrounded amount, so -0.001 is written as $-0.00
+            writeCents(rounded.unscaledValue().longValue(), amount.signum() < 0);
+            return this;
+        }
+
+        String digits = rounded.unscaledValue().abs().toString();
+        out.write(amount.signum() < 0 ? "$-" : "$");
+        int integerDigits = digits.length() - CENTS_SCALE;
+        for (int i = 0; i < integerDigits; i++) {
+            if (i > 0 && (integerDigits - i) % 3 == 0) {
+                out.write(',');
+            }
+            out.write(digits.charAt(i));
+        }
+        out.write('.');
+        out.write(digits, integerDigits, CENTS_SCALE);
+        return this;
+    }
+
+    /**
+     * Writes an amount held in minor units (cents) as dollars and cents
+     */
+    public MarkdownWriter currencyMinorUnits(long cents) throws IOException {
+        writeCents(cents, cents < 0);
+        return this;
+    }
+
+    public MarkdownWriter date(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1 || year > 9999) {
+            out.write(DATE_FORMATTER.format(date));
+            return this;
+        }
+        char[] b = buffer;
+        b[0] = (char) ('0' + year / 1000);
+        b[1] = (char) ('0' + year / 100 % 10);
+        b[2] = (char) ('0' + year / 10 % 10);
+        b[3] = (char) ('0' + year % 10);
+        b[4] = '-';
+        b[5] = (char) ('0' + date.getMonthValue() / 10);
+        b[6] = (char) ('0' + date.getMonthValue() % 10);
+        b[7] = '-';
+        b[8] = (char) ('0' + date.getDayOfMonth() / 10);
+        b[9] = (char) ('0' + date.getDayOfMonth() % 10);
+        out.write(b, 0, 10);
+        return this;
+    }
+
+    private void writeCents(long cents, boolean negative) throws IOException {
+        int end = buffer.length;
+        int pos = end;
+        // Work on the negated value so that Long.MIN_VALUE does not overflow
+        long value = cents > 0 ? -cents : cents;
+        buffer[--pos] = (char) ('0' - value % 10);
+        value /= 10;
+        buffer[--pos] = (char) ('0' - value % 10);
+        value /= 10;
+        buffer[--pos] = '.';
+        pos = formatLong(value, pos, true);
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        buffer[--pos] = '$';
+        out.write(buffer, pos, end - pos);
+    }
+
+    /**
+     * Formats a value right-aligned to end at {@code end} in the buffer and returns its start
+     */
+    private int formatLong(long value, int end, boolean grouped) {
+        int pos = end;
+        boolean negative = value < 0;
+        long v = negative ? value : -value;
+        int digits = 0;
+        do {
+            if (grouped && digits > 0 && digits % 3 == 0) {
+                buffer[--pos] = ',';
+            }
+            buffer[--pos] = (char) ('0' - v % 10);
+            v /= 10;
+            digits++;
+        } while (v != 0);
+        if (negative && !grouped) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+}
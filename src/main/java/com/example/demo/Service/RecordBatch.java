@@ -0,0 +1,705 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Columnar in-memory batch of financial data records.
+ * Raw field values are kept in one string column per field name, with the names in a header
+ * dictionary that can be shared between batches. Dates are an int epoch-day column, amounts a
+ * long column in minor units, category and account are dictionary-encoded, and presence is
+ * tracked in bitmaps. Values that do not fit the primitive columns (amounts with more than two
+ * decimals or beyond the long range, dates beyond the int epoch-day range) are kept exactly in
+ * small side tables.
+ *
+ * Parsers fill the batch with bound {@link RecordRow}s, whose minor units, epoch days and raw
+ * values go straight into the columns; {@link #forEachRow} hands the rows on the same way.
+ * As a {@link List} the batch is a view adapter for code that expects {@link FinancialDataRecord}:
+ * {@link #get(int)} materializes a record from the columns on every call. Not thread-safe.
+ */
+public class RecordBatch extends AbstractList<FinancialDataRecord> implements FinancialRecordSink, BatchedRecords {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MINOR_UNIT_SCALE = AmountColumnParser.MINOR_UNIT_SCALE;
+
+    private final FieldDictionary fieldDictionary;
+    private int size;
+    private FieldColumn[] fieldColumns = new FieldColumn[0];
+    private final BitSet dates = new BitSet();
+    private int[] epochDays;
+    private Map<Integer, LocalDate> wideDates;
+    private final BitSet amounts = new BitSet();
+    private long[] amountMinorUnits;
+    private Map<Integer, BigDecimal> exactAmounts;
+    private String[] descriptions;
+    private final DictionaryColumn categories;
+    private final DictionaryColumn accounts;
+
+    public RecordBatch() {
+        this(new FieldDictionary(), INITIAL_CAPACITY);
+    }
+
+    RecordBatch(FieldDictionary fieldDictionary, int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.fieldDictionary = fieldDictionary;
+        this.epochDays = new int[initial];
+        this.amountMinorUnits = new long[initial];
+        this.descriptions = new String[initial];
+        this.categories = new DictionaryColumn(initial);
+        this.accounts = new DictionaryColumn(initial);
+    }
+
+    /**
+     * Copies records into a new batch
+     */
+    public static RecordBatch copyOf(Iterable<FinancialDataRecord> records) {
+        RecordBatch batch = new RecordBatch();
+        records.forEach(batch::add);
+        return batch;
+    }
+
+    /**
+     * Empty batch whose header dictionary already has the given field names, in order
+     */
+    static RecordBatch withFieldNames(List<String> fieldNames) {
+        FieldDictionary fieldDictionary = new FieldDictionary();
+        fieldNames.forEach(fieldDictionary::id);
+        return new RecordBatch(fieldDictionary, INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void accept(FinancialDataRecord record) {
+        add(record);
+    }
+
+    /**
+     * Appends a bound row, copying its values into the columns without building a record
+     */
+    @Override
+    public void acceptRow(RecordRow record) {
+        ensureCapacity(size + 1);
+        int row = size;
+
+        int[] fieldIds = fieldDictionary.ids(record);
+        for (int i = 0; i < fieldIds.length; i++) {
+            if (!record.hasField(i)) {
+                continue;
+            }
+            int id = fieldIds[i];
+            if (id < 0) {
+                id = fieldDictionary.id(record.getFieldName(i));
+                fieldIds[i] = id;
+            }
+            Object value = record.getFieldValue(i);
+            fieldColumn(id).set(row, value != null ? value.toString() : null);
+        }
+        if (record.hasDate()) {
+            setEpochDay(row, record.getEpochDay());
+        }
+        if (record.isMinorUnitAmount()) {
+            amountMinorUnits[row] = record.getAmountMinorUnits();
+            amounts.set(row);
+        } else if (record.hasAmount()) {
+            setAmount(row, record.getAmount());
+        }
+        descriptions[row] = record.getDescription();
+        categories.set(row, record.getCategory());
+        accounts.set(row, record.getAccount());
+
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Hands every row of the batch to the sink as a {@link RecordRow}, in order
+     */
+    public void forEachRow(FinancialRecordSink sink) {
+        BatchRow cursor = new BatchRow();
+        for (int row = 0; row < size; row++) {
+            cursor.row = row;
+            sink.acceptRow(cursor);
+        }
+    }
+
+    @Override
+    public boolean add(FinancialDataRecord record) {
+        ensureCapacity(size + 1);
+        int row = size;
+
+        if (record.getFields() != null) {
+            for (Map.Entry<String, Object> entry : record.getFields().entrySet()) {
+                Object value = entry.getValue();
+                fieldColumn(fieldDictionary.id(entry.getKey())).set(row, value != null ? value.toString() : null);
+            }
+        }
+        if (record.getDate() != null) {
+            setDate(row, record.getDate());
+        }
+        if (record.getAmount() != null) {
+            setAmount(row, record.getAmount());
+        }
+        descriptions[row] = record.getDescription();
+        categories.set(row, record.getCategory());
+        accounts.set(row, record.getAccount());
+
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Materializes the record at a row
+     */
+    @Override
+    public FinancialDataRecord get(int row) {
+        Objects.checkIndex(row, size);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int id = 0; id < fieldColumns.length; id++) {
+            if (hasField(id, row)) {
+                fields.put(fieldDictionary.name(id), fieldColumns[id].values[row]);
+            }
+        }
+        return new FinancialDataRecord(fields, getDate(row), getAmount(row),
+            descriptions[row], categories.value(row), accounts.value(row));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterable<RecordBatch> batches() {
+        return List.of(this);
+    }
+
+    @Override
+    public List<String> getFieldNames() {
+        return fieldDictionary.names();
+    }
+
+    /**
+     * Id of a field name in this batch's header dictionary, or -1 if no record has had it
+     */
+    public int fieldId(String name) {
+        return fieldDictionary.find(name);
+    }
+
+    public boolean hasField(int fieldId, int row) {
+        return fieldId >= 0 && fieldId < fieldColumns.length && fieldColumns[fieldId] != null && fieldColumns[fieldId].present.get(row);
+    }
+
+    /**
+     * String form of a raw field value; null if the field is absent or its value was null
+     */
+    public String getFieldValue(int fieldId, int row) {
+        return hasField(fieldId, row) ? fieldColumns[fieldId].values[row] : null;
+    }
+
+    /**
+     * Whether the record at a row has any raw fields
+     */
+    public boolean hasFields(int row) {
+        for (int id = 0; id < fieldColumns.length; id++) {
+            if (hasField(id, row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasDate(int row) {
+        return dates.get(row);
+    }
+
+    public LocalDate getDate(int row) {
+        if (!dates.get(row)) {
+            return null;
+        }
+        if (wideDates != null && wideDates.containsKey(row)) {
+            return wideDates.get(row);
+        }
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    /**
+     * Date at a row as an epoch day; only meaningful when {@link #hasDate(int)}
+     */
+    public long getEpochDay(int row) {
+        if (wideDates != null && wideDates.containsKey(row)) {
+            return wideDates.get(row).toEpochDay();
+        }
+        return epochDays[row];
+    }
+
+    public boolean hasAmount(int row) {
+        return amounts.get(row);
+    }
+
+    public BigDecimal getAmount(int row) {
+        if (!amounts.get(row)) {
+            return null;
+        }
+        if (exactAmounts != null && exactAmounts.containsKey(row)) {
+            return exactAmounts.get(row);
+        }
+        return BigDecimal.valueOf(amountMinorUnits[row], MINOR_UNIT_SCALE);
+    }
+
+    public String getDescription(int row) {
+        return descriptions[row];
+    }
+
+    public String getCategory(int row) {
+        return categories.value(row);
+    }
+
+    public String getAccount(int row) {
+        return accounts.value(row);
+    }
+
+    public DictionaryColumn getCategories() {
+        return categories;
+    }
+
+    public DictionaryColumn getAccounts() {
+        return accounts;
+    }
+
+    public int getDateCount() {
+        return dates.cardinality();
+    }
+
+    public int getAmountCount() {
+        return amounts.cardinality();
+    }
+
+    /**
+     * Whether the amount at a row is held in the minor-unit column rather than as an exact decimal
+     */
+    public boolean isMinorUnitAmount(int row) {
+        return amounts.get(row) && (exactAmounts == null || !exactAmounts.containsKey(row));
+    }
+
+    /**
+     * Amount at a row in minor units; only meaningful when {@link #isMinorUnitAmount(int)}
+     */
+    public long getAmountMinorUnits(int row) {
+        return amountMinorUnits[row];
+    }
+
+    private void setDate(int row, LocalDate date) {
+        setEpochDay(row, date.toEpochDay());
+    }
+
+    private void setEpochDay(int row, long epochDay) {
+        if (epochDay == (int) epochDay) {
+            epochDays[row] = (int) epochDay;
+        } else {
+            if (wideDates == null) {
+                wideDates = new HashMap<>();
+            }
+            wideDates.put(row, LocalDate.ofEpochDay(epochDay));
+        }
+        dates.set(row);
+    }
+
+    private void setAmount(int row, BigDecimal amount) {
+        if (amount.scale() >= 0 && amount.scale() <= MINOR_UNIT_SCALE) {
+            BigInteger unscaled = amount.setScale(MINOR_UNIT_SCALE).unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                amountMinorUnits[row] = unscaled.longValue();
+                amounts.set(row);
+                return;
+            }
+        }
+        if (exactAmounts == null) {
+            exactAmounts = new HashMap<>();
+        }
+        exactAmounts.put(row, amount);
+        amounts.set(row);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= epochDays.length) {
+            return;
+        }
+        int capacity = Math.max(required, epochDays.length * 2);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        amountMinorUnits = Arrays.copyOf(amountMinorUnits, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        categories.grow(capacity);
+        accounts.grow(capacity);
+    }
+
+    private FieldColumn fieldColumn(int fieldId) {
+        if (fieldId >= fieldColumns.length) {
+            fieldColumns = Arrays.copyOf(fieldColumns, Math.max(fieldId + 1, fieldColumns.length * 2));
+        }
+        if (fieldColumns[fieldId] == null) {
+            fieldColumns[fieldId] = new FieldColumn(epochDays.length);
+        }
+        return fieldColumns[fieldId];
+    }
+
+    /**
+     * Writes the batch columns. Field ids refer to the shared header dictionary, which is not written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+
+        int columns = 0;
+        for (FieldColumn column : fieldColumns) {
+            if (column != null) {
+                columns++;
+            }
+        }
+        out.writeInt(columns);
+        for (int id = 0; id < fieldColumns.length; id++) {
+            FieldColumn column = fieldColumns[id];
+            if (column == null) {
+                continue;
+            }
+            out.writeInt(id);
+            writeBits(out, column.present);
+            for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+                writeString(out, column.values[row]);
+            }
+        }
+
+        writeBits(out, dates);
+        for (int row = dates.nextSetBit(0); row >= 0; row = dates.nextSetBit(row + 1)) {
+            out.writeLong(getEpochDay(row));
+        }
+
+        writeBits(out, amounts);
+        for (int row = amounts.nextSetBit(0); row >= 0; row = amounts.nextSetBit(row + 1)) {
+            BigDecimal exact = exactAmounts != null ? exactAmounts.get(row) : null;
+            out.writeBoolean(exact != null);
+            if (exact != null) {
+                byte[] unscaled = exact.unscaledValue().toByteArray();
+                out.writeInt(exact.scale());
+                out.writeInt(unscaled.length);
+                out.write(unscaled);
+            } else {
+                out.writeLong(amountMinorUnits[row]);
+            }
+        }
+
+        for (int row = 0; row < size; row++) {
+            writeString(out, descriptions[row]);
+        }
+        categories.writeTo(out, size);
+        accounts.writeTo(out, size);
+    }
+
+    /**
+     * Reads a batch written by {@link #writeTo(DataOutputStream)} against the same header dictionary
+     */
+    static RecordBatch readFrom(DataInputStream in, FieldDictionary fieldDictionary) throws IOException {
+        int size = in.readInt();
+        RecordBatch batch = new RecordBatch(fieldDictionary, size);
+        batch.size = size;
+
+        int columns = in.readInt();
+        for (int i = 0; i < columns; i++) {
+            FieldColumn column = batch.fieldColumn(in.readInt());
+            BitSet present = readBits(in);
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                column.set(row, readString(in));
+            }
+        }
+
+        BitSet dates = readBits(in);
+        for (int row = dates.nextSetBit(0); row >= 0; row = dates.nextSetBit(row + 1)) {
+            batch.setEpochDay(row, in.readLong());
+        }
+
+        BitSet amounts = readBits(in);
+        for (int row = amounts.nextSetBit(0); row >= 0; row = amounts.nextSetBit(row + 1)) {
+            if (in.readBoolean()) {
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readInt()];
+                in.readFully(unscaled);
+                batch.setAmount(row, new BigDecimal(new BigInteger(unscaled), scale));
+            } else {
+                batch.amountMinorUnits[row] = in.readLong();
+                batch.amounts.set(row);
+            }
+        }
+
+        for (int row = 0; row < size; row++) {
+            batch.descriptions[row] = readString(in);
+        }
+        batch.categories.readFrom(in, size);
+        batch.accounts.readFrom(in, size);
+        return batch;
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(DataInputStream in) throws IOException {
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Header dictionary mapping field names to column ids, shared by the batches of one record stream
+     */
+    static final class FieldDictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        // Ids of the field indexes of the last row layout seen, -1 until the index has had a value
+        private Object layout;
+        private int[] layoutIds = new int[0];
+
+        /**
+         * Ids of a row's field indexes, filled in by the caller as the indexes first have values.
+         * Rows of the same layout share the array, so names are only looked up once per layout.
+         */
+        int[] ids(RecordRow row) {
+            Object rowLayout = row.getFieldLayout();
+            int count = row.getFieldCount();
+            if (rowLayout != layout || layoutIds.length != count) {
+                layout = rowLayout;
+                layoutIds = new int[count];
+                Arrays.fill(layoutIds, -1);
+            }
+            return layoutIds;
+        }
+
+        int id(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        int find(String name) {
+            Integer id = ids.get(name);
+            return id != null ? id : -1;
+        }
+
+        String name(int id) {
+            return names.get(id);
+        }
+
+        List<String> names() {
+            return Collections.unmodifiableList(names);
+        }
+    }
+
+    /**
+     * A row of this batch read through {@link RecordRow}; field indexes are header dictionary ids
+     */
+    private final class BatchRow implements RecordRow {
+        private int row;
+
+        @Override
+        public Object getFieldLayout() {
+            return fieldDictionary;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return fieldColumns.length;
+        }
+
+        @Override
+        public String getFieldName(int index) {
+            return fieldDictionary.name(index);
+        }
+
+        @Override
+        public boolean hasField(int index) {
+            return RecordBatch.this.hasField(index, row);
+        }
+
+        @Override
+        public Object getFieldValue(int index) {
+            return fieldColumns[index].values[row];
+        }
+
+        @Override
+        public boolean hasDate() {
+            return RecordBatch.this.hasDate(row);
+        }
+
+        @Override
+        public long getEpochDay() {
+            return RecordBatch.this.getEpochDay(row);
+        }
+
+        @Override
+        public boolean hasAmount() {
+            return RecordBatch.this.hasAmount(row);
+        }
+
+        @Override
+        public boolean isMinorUnitAmount() {
+            return RecordBatch.this.isMinorUnitAmount(row);
+        }
+
+        @Override
+        public long getAmountMinorUnits() {
+            return amountMinorUnits[row];
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            return RecordBatch.this.getAmount(row);
+        }
+
+        @Override
+        public String getDescription() {
+            return descriptions[row];
+        }
+
+        @Override
+        public String getCategory() {
+            return categories.value(row);
+        }
+
+        @Override
+        public String getAccount() {
+            return accounts.value(row);
+        }
+    }
+
+    /**
+     * Raw string values of one field, with a bitmap of the rows that have the field
+     */
+    private static final class FieldColumn {
+        private String[] values;
+        private final BitSet present = new BitSet();
+
+        FieldColumn(int capacity) {
+            this.values = new String[capacity];
+        }
+
+        void set(int row, String value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            values[row] = value;
+            present.set(row);
+        }
+    }
+
+    /**
+     * Dictionary-encoded string column. Codes are assigned in first-seen order; null has no code.
+     */
+    public static final class DictionaryColumn {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        // Code + 1 per row, so that 0 (the array default) is null
+        private int[] rows;
+
+        DictionaryColumn(int capacity) {
+            this.rows = new int[capacity];
+        }
+
+        /**
+         * Code of the value at a row, or -1 for null
+         */
+        public int code(int row) {
+            return rows[row] - 1;
+        }
+
+        public String value(int row) {
+            int code = rows[row] - 1;
+            return code >= 0 ? values.get(code) : null;
+        }
+
+        public String valueOf(int code) {
+            return values.get(code);
+        }
+
+        /**
+         * Number of distinct non-null values
+         */
+        public int cardinality() {
+            return values.size();
+        }
+
+        void set(int row, String value) {
+            if (value == null) {
+                rows[row] = 0;
+                return;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            rows[row] = code + 1;
+        }
+
+        void grow(int capacity) {
+            rows = Arrays.copyOf(rows, capacity);
+        }
+
+        void writeTo(DataOutputStream out, int size) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(out, value);
+            }
+            for (int row = 0; row < size; row++) {
+                out.writeInt(rows[row]);
+            }
+        }
+
+        void readFrom(DataInputStream in, int size) throws IOException {
+            int cardinality = in.readInt();
+            for (int code = 0; code < cardinality; code++) {
+                String value = readString(in);
+                codes.put(value, code);
+                values.add(value);
+            }
+            for (int row = 0; row < size; row++) {
+                rows[row] = in.readInt();
+            }
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ColumnParseFailures;
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Binds raw rows of one file to {@link RecordRow}s, or to {@link FinancialDataRecord}s.
+ * Holds the file's compiled {@link RecordBindingPlan} and the per-column parser state, which is
+ * keyed by header name so that it survives plan changes (new sheet, new JSON key layout).
+ * Cells that cannot be parsed are counted per column with a few sampled values rather than logged,
+ * so that a file full of bad cells costs no more to bind than a clean one.
+ * Not thread-safe; create one per file.
+ */
+public class RecordBinder {
+
+    private final Map<String, DateColumnParser> dateParsers = new LinkedHashMap<>();
+    private final Map<String, AmountColumnParser> amountParsers = new LinkedHashMap<>();
+    private final Map<String, ColumnParseFailures> dateFailures = new LinkedHashMap<>();
+    private final Map<String, ColumnParseFailures> amountFailures = new LinkedHashMap<>();
+    private RecordBindingPlan plan;
+    private DateColumnParser[] dateColumns;
+    private AmountColumnParser[] amountColumns;
+    private long dateParseFailures;
+    private long amountParseFailures;
+    private final BoundRow row = new BoundRow();
+    private Object[] csvValues = new Object[0];
+
+    /**
+     * Compiles the plan for a new header row
+     */
+    public void setHeaders(List<String> headers) {
+        usePlan(RecordBindingPlan.compile(headers));
+    }
+
+    public void setHeaders(String[] headers) {
+        usePlan(RecordBindingPlan.compile(headers));
+    }
+
+    public void setHeaders(CsvRow headers) {
+        String[] names = new String[headers.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = headers.cell(i);
+        }
+        usePlan(RecordBindingPlan.compile(names));
+    }
+
+    /**
+     * Binds a row whose cells are in header order. Cells past the end of the row are treated as absent.
+     */
+    public FinancialDataRecord bind(Object[] values) {
+        return bindRow(values).toRecord();
+    }
+
+    /**
+     * Binds a delimited row. Cells past the last header are never decoded.
+     */
+    public FinancialDataRecord bind(CsvRow row) {
+        return bindRow(row).toRecord();
+    }
+
+    /**
+     * Binds a keyed row such as a JSON object. The plan is only recompiled when the key layout changes.
+     */
+    public FinancialDataRecord bind(Map<String, Object> fields) {
+        return bindRow(fields).toRecord();
+    }
+
+    /**
+     * Binds a row whose cells are in header order into this binder's row, which is reused by the next call.
+     * Amounts are kept in minor units where they fit and dates as epoch days.
+     */
+    public RecordRow bindRow(Object[] values) {
+        row.reset(plan, values, null);
+        return bindStandardFields();
+    }
+
+    /**
+     * Binds a delimited row into this binder's row. Date and amount cells are parsed from the row's
+     * characters; other cells are only decoded when read, and cells past the last header never are.
+     */
+    public RecordRow bindRow(CsvRow cells) {
+        int columns = Math.min(cells.size(), plan.getColumnCount());
+        if (csvValues.length != columns) {
+            csvValues = new Object[columns];
+        }
+        Arrays.fill(csvValues, BoundRow.UNDECODED);
+        row.reset(plan, csvValues, cells);
+        return bindStandardFields();
+    }
+
+    /**
+     * Binds a keyed row such as a JSON object into this binder's row
+     */
+    public RecordRow bindRow(Map<String, Object> fields) {
+        if (plan == null || !plan.matches(fields.keySet())) {
+            setHeaders(new ArrayList<>(fields.keySet()));
+        }
+        return bindRow(fields.values().toArray());
+    }
+
+    /**
+     * Date columns whose values fit both MM/dd/yyyy and dd/MM/yyyy
+     */
+    public List<String> getAmbiguousDateColumns() {
+        List<String> ambiguous = new ArrayList<>();
+        dateParsers.forEach((header, parser) -> {
+            if (parser.isAmbiguous()) {
+                ambiguous.add(header);
+            }
+        });
+        return ambiguous;
+    }
+
+    /**
+     * Amount columns whose values were, or may have been, read with different decimal separators
+     */
+    public List<String> getAmbiguousAmountColumns() {
+        List<String> ambiguous = new ArrayList<>();
+        amountParsers.forEach((header, parser) -> {
+            if (parser.isAmbiguous()) {
+                ambiguous.add(header);
+            }
+        });
+        return ambiguous;
+    }
+
+    /**
+     * Date cells that could not be parsed, counted per cell tried
+     */
+    public long getDateParseFailures() {
+        return dateParseFailures;
+    }
+
+    /**
+     * Amount cells that could not be parsed, counted per cell tried
+     */
+    public long getAmountParseFailures() {
+        return amountParseFailures;
+    }
+
+    /**
+     * Parse failures of each column that had any, date columns first, in first-failure order
+     */
+    public List<ColumnParseFailures> getColumnFailures() {
+        List<ColumnParseFailures> failures = new ArrayList<>(dateFailures.values());
+        failures.addAll(amountFailures.values());
+        return failures;
+    }
+
+    private RecordRow bindStandardFields() {
+        int[] dateCandidates = plan.getDateColumns();
+        for (int i = 0; i < dateCandidates.length; i++) {
+            CharSequence text = row.chars(dateCandidates[i]);
+            if (text == null) {
+                continue;
+            }
+            try {
+                LocalDate date = dateColumns[i].parse(text);
+                if (date != null) {
+                    row.setEpochDay(date.toEpochDay());
+                    break;
+                }
+            } catch (Exception e) {
+                dateParseFailures++;
+                dateFailures.computeIfAbsent(plan.getHeader(dateCandidates[i]),
+                    h -> new ColumnParseFailures(h, ColumnParseFailures.Kind.DATE)).record(text.toString());
+            }
+        }
+
+        int[] amountCandidates = plan.getAmountColumns();
+        for (int i = 0; i < amountCandidates.length; i++) {
+            CharSequence text = row.chars(amountCandidates[i]);
+            if (text == null) {
+                continue;
+            }
+            try {
+                AmountColumnParser parser = amountColumns[i];
+                int parsed = parser.parse(text);
+                if (parsed == AmountColumnParser.MINOR_UNITS) {
+                    row.setAmountMinorUnits(parser.getMinorUnits());
+                    break;
+                }
+                if (parsed == AmountColumnParser.DECIMAL) {
+                    row.setAmount(parser.getDecimal());
+                    break;
+                }
+            } catch (Exception e) {
+                amountParseFailures++;
+                amountFailures.computeIfAbsent(plan.getHeader(amountCandidates[i]),
+                    h -> new ColumnParseFailures(h, ColumnParseFailures.Kind.AMOUNT)).record(text.toString());
+            }
+        }
+
+        row.description = textValue(plan.getDescriptionColumns());
+        row.category = textValue(plan.getCategoryColumns());
+        row.account = textValue(plan.getAccountColumns());
+        return row;
+    }
+
+    private void usePlan(RecordBindingPlan newPlan) {
+        plan = newPlan;
+        int[] candidates = newPlan.getDateColumns();
+        dateColumns = new DateColumnParser[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            dateColumns[i] = dateParsers.computeIfAbsent(newPlan.getHeader(candidates[i]), h -> new DateColumnParser());
+        }
+        int[] amountCandidates = newPlan.getAmountColumns();
+        amountColumns = new AmountColumnParser[amountCandidates.length];
+        for (int i = 0; i < amountCandidates.length; i++) {
+            amountColumns[i] = amountParsers.computeIfAbsent(newPlan.getHeader(amountCandidates[i]), h -> new AmountColumnParser());
+        }
+    }
+
+    private String textValue(int[] columns) {
+        String fallback = null;
+        for (int column : columns) {
+            String strValue = row.string(column);
+            if (strValue == null) {
+                continue;
+            }
+            if (!strValue.isBlank()) {
+                return strValue;
+            }
+            if (fallback == null) {
+                fallback = strValue;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * The row a binder binds into: the raw values in plan order and the standard fields.
+     * Values of a delimited row start out undecoded and are decoded from the row when first read.
+     */
+    private static final class BoundRow implements RecordRow {
+        static final Object UNDECODED = new Object();
+
+        private RecordBindingPlan plan;
+        private Object[] values;
+        private CsvRow source;
+        private boolean hasDate;
+        private long epochDay;
+        private boolean hasAmount;
+        private long amountMinorUnits;
+        private BigDecimal exactAmount;
+        private String description;
+        private String category;
+        private String account;
+
+        void reset(RecordBindingPlan plan, Object[] values, CsvRow source) {
+            this.plan = plan;
+            this.values = values;
+            this.source = source;
+            hasDate = false;
+            hasAmount = false;
+            exactAmount = null;
+        }
+
+        /**
+         * Characters of a cell, or null when the row is too short to have the column.
+         * An undecoded cell is read from the source row and is only valid until the next cell is read.
+         */
+        CharSequence chars(int column) {
+            if (column >= values.length) {
+                return null;
+            }
+            Object value = values[column];
+            if (value == UNDECODED) {
+                return source.chars(column);
+            }
+            return value != null ? value.toString() : "";
+        }
+
+        /**
+         * String form of a cell, or null when the row is too short to have the column
+         */
+        String string(int column) {
+            if (column >= values.length) {
+                return null;
+            }
+            Object value = getFieldValue(column);
+            return value != null ? value.toString() : "";
+        }
+
+        void setEpochDay(long epochDay) {
+            this.epochDay = epochDay;
+            hasDate = true;
+        }
+
+        void setAmountMinorUnits(long units) {
+            amountMinorUnits = units;
+            hasAmount = true;
+        }
+
+        void setAmount(BigDecimal amount) {
+            exactAmount = amount;
+            hasAmount = true;
+        }
+
+        @Override
+        public Object getFieldLayout() {
+            return plan;
+        }
+
+        @Override
+        public int getFieldCount() {
+            return plan.getColumnCount();
+        }
+
+        @Override
+        public String getFieldName(int index) {
+            return plan.getHeader(index);
+        }
+
+        @Override
+        public boolean hasField(int index) {
+            return index < values.length && plan.getHeader(index) != null;
+        }
+
+        @Override
+        public Object getFieldValue(int index) {
+            Object value = values[index];
+            if (value == UNDECODED) {
+                value = source.cell(index);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public boolean hasDate() {
+            return hasDate;
+        }
+
+        @Override
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        @Override
+        public boolean hasAmount() {
+            return hasAmount;
+        }
+
+        @Override
+        public boolean isMinorUnitAmount() {
+            return hasAmount && exactAmount == null;
+        }
+
+        @Override
+        public long getAmountMinorUnits() {
+            return amountMinorUnits;
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            if (!hasAmount) {
+                return null;
+            }
+            return exactAmount != null ? exactAmount : BigDecimal.valueOf(amountMinorUnits, AmountColumnParser.MINOR_UNIT_SCALE);
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public String getAccount() {
+            return account;
+        }
+
+        @Override
+        public FinancialDataRecord toRecord() {
+            if (source != null) {
+                for (int i = 0; i < values.length; i++) {
+                    if (hasField(i)) {
+                        getFieldValue(i);
+                    }
+                }
+            }
+            FinancialDataRecord record = new FinancialDataRecord(plan.toFields(values));
+            record.setDate(hasDate ? LocalDate.ofEpochDay(epochDay) : null);
+            record.setAmount(getAmount());
+            record.setDescription(description);
+            record.setCategory(category);
+            record.setAccount(account);
+            return record;
+        }
+    }
+}
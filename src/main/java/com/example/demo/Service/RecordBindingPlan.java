@@ -0,0 +1,169 @@
+package com.example.demo.service;
+
+import java.util.*;
+
+/**
+ * Header-to-field mapping compiled once per file (or per distinct JSON key set).
+ * Each standard field gets an ordered list of candidate columns, so rows are bound by
+ * column index without any per-row string matching.
+ *
+ * Candidates are ranked by keyword priority, then exact header matches before partial ones,
+ * then column order. Binding takes the first candidate that yields a value, which makes
+ * ambiguous headers such as "Category" vs "Type" or several amount-like columns deterministic.
+ */
+public final class RecordBindingPlan {
+
+    private static final String[] DATE_KEYWORDS = {"date"};
+    private static final String[] AMOUNT_KEYWORDS = {"amount", "value", "price", "balance"};
+    private static final String[] DESCRIPTION_KEYWORDS = {"description", "note", "memo"};
+    private static final String[] CATEGORY_KEYWORDS = {"category", "type"};
+    private static final String[] ACCOUNT_KEYWORDS = {"account"};
+
+    private final String[] headers;
+    private final int fieldCount;
+    private final int[] dateColumns;
+    private final int[] amountColumns;
+    private final int[] descriptionColumns;
+    private final int[] categoryColumns;
+    private final int[] accountColumns;
+
+    private RecordBindingPlan(String[] headers) {
+        this.headers = headers;
+
+        // Later duplicates of a header overwrite earlier ones in the fields map, so only the
+        // last occurrence of each name is eligible for binding
+        Map<String, Integer> lastIndex = new HashMap<>();
+        for (int i = 0; i < headers.length; i++) {
+            if (headers[i] != null) {
+                lastIndex.put(headers[i], i);
+            }
+        }
+        this.fieldCount = lastIndex.size();
+
+        String[] lowerHeaders = new String[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            if (headers[i] != null && lastIndex.get(headers[i]) == i) {
+                lowerHeaders[i] = headers[i].toLowerCase();
+            }
+        }
+
+        this.dateColumns = candidates(lowerHeaders, DATE_KEYWORDS, null);
+        // A column named like a date is never treated as an amount ("Value Date")
+        this.amountColumns = candidates(lowerHeaders, AMOUNT_KEYWORDS, DATE_KEYWORDS);
+        this.descriptionColumns = candidates(lowerHeaders, DESCRIPTION_KEYWORDS, null);
+        this.categoryColumns = candidates(lowerHeaders, CATEGORY_KEYWORDS, null);
+        this.accountColumns = candidates(lowerHeaders, ACCOUNT_KEYWORDS, null);
+    }
+
+    /**
+     * @param headers column names in column order; null entries are columns without a header
+     */
+    public static RecordBindingPlan compile(List<String> headers) {
+        return new RecordBindingPlan(headers.toArray(new String[0]));
+    }
+
+    public static RecordBindingPlan compile(String[] headers) {
+        return new RecordBindingPlan(headers.clone());
+    }
+
+    /**
+     * Whether this plan was compiled for exactly these keys in this order
+     */
+    public boolean matches(Collection<String> keys) {
+        if (keys.size() != headers.length) {
+            return false;
+        }
+        int i = 0;
+        for (String key : keys) {
+            if (!Objects.equals(key, headers[i++])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the raw fields map for a row. Columns beyond the end of the row are omitted.
+     */
+    public Map<String, Object> toFields(Object[] values) {
+        Map<String, Object> fields = new LinkedHashMap<>(Math.max(16, fieldCount * 4 / 3 + 1));
+        int columns = Math.min(headers.length, values.length);
+        for (int i = 0; i < columns; i++) {
+            if (headers[i] != null) {
+                fields.put(headers[i], values[i]);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Number of columns in the header row
+     */
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    public String getHeader(int column) {
+        return headers[column];
+    }
+
+    public int[] getDateColumns() {
+        return dateColumns;
+    }
+
+    public int[] getAmountColumns() {
+        return amountColumns;
+    }
+
+    public int[] getDescriptionColumns() {
+        return descriptionColumns;
+    }
+
+    public int[] getCategoryColumns() {
+        return categoryColumns;
+    }
+
+    public int[] getAccountColumns() {
+        return accountColumns;
+    }
+
+    /**
+     * Whether a field of this name is read as the date or the amount of a record
+     */
+    public static boolean isDateOrAmount(String header) {
+        String lowerHeader = header.toLowerCase();
+        return rank(lowerHeader, DATE_KEYWORDS) >= 0 || rank(lowerHeader, AMOUNT_KEYWORDS) >= 0;
+    }
+
+    private static int[] candidates(String[] lowerHeaders, String[] keywords, String[] excluded) {
+        List<int[]> ranked = new ArrayList<>();
+        for (int i = 0; i < lowerHeaders.length; i++) {
+            String header = lowerHeaders[i];
+            if (header == null || (excluded != null && rank(header, excluded) >= 0)) {
+                continue;
+            }
+            int rank = rank(header, keywords);
+            if (rank >= 0) {
+                ranked.add(new int[] {rank, i});
+            }
+        }
+        ranked.sort(Comparator.<int[]>comparingInt(c -> c[0]).thenComparingInt(c -> c[1]));
+        return ranked.stream().mapToInt(c -> c[1]).toArray();
+    }
+
+    /**
+     * Rank of the best keyword matching the header, or -1 if none matches.
+     * An exact match on a keyword ranks ahead of a partial match on the same keyword.
+     */
+    private static int rank(String header, String[] keywords) {
+        for (int k = 0; k < keywords.length; k++) {
+            if (header.equals(keywords[k])) {
+                return k * 2;
+            }
+            if (header.contains(keywords[k])) {
+                return k * 2 + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One bound record read value by value, with its date as an epoch day and its amount in minor
+ * units where it fits, so that it can be stored without building a {@link FinancialDataRecord}.
+ * A row is only valid while it is being handed on; its owner reuses it for the next one.
+ */
+public interface RecordRow {
+
+    /**
+     * Identifies the field names: rows with the same layout have the same name at every field index
+     */
+    Object getFieldLayout();
+
+    /**
+     * Number of field indexes, some of which may have no value in this row
+     */
+    int getFieldCount();
+
+    /**
+     * Name at a field index; null for a column without a header
+     */
+    String getFieldName(int index);
+
+    /**
+     * Whether the row has a value at a field index. A name may appear at several indexes, in which
+     * case the last value present wins.
+     */
+    boolean hasField(int index);
+
+    /**
+     * Raw value at a field index, which may be null
+     */
+    Object getFieldValue(int index);
+
+    boolean hasDate();
+
+    long getEpochDay();
+
+    boolean hasAmount();
+
+    /**
+     * Whether the amount is held in minor units rather than as an exact decimal
+     */
+    boolean isMinorUnitAmount();
+
+    /**
+     * Amount in minor units; only meaningful when {@link #isMinorUnitAmount()}
+     */
+    long getAmountMinorUnits();
+
+    /**
+     * Amount as a decimal, or null if the row has none
+     */
+    BigDecimal getAmount();
+
+    String getDescription();
+
+    String getCategory();
+
+    String getAccount();
+
+    /**
+     * Materializes the row as a record; fields keep the position of their name's first index
+     */
+    default FinancialDataRecord toRecord() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < getFieldCount(); i++) {
+            if (hasField(i)) {
+                fields.put(getFieldName(i), getFieldValue(i));
+            }
+        }
+        return new FinancialDataRecord(fields, hasDate() ? LocalDate.ofEpochDay(getEpochDay()) : null, getAmount(),
+            getDescription(), getCategory(), getAccount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * A bounded subset of a record stream, chosen in one pass over its batches.
+ * Only the selected records are materialized; they are kept in a batch with the source's field
+ * names, together with their 1-based record numbers in the source.
+ */
+final class RecordSelection {
+
+    // Fixed so that the same upload always gives the same sample
+    private static final long SAMPLE_SEED = 0x5EEDL;
+
+    private final RecordBatch records;
+    private final int[] recordNumbers;
+
+    private RecordSelection(List<String> fieldNames, List<Selected> selected) {
+        this.records = RecordBatch.withFieldNames(fieldNames);
+        this.recordNumbers = new int[selected.size()];
+        for (int i = 0; i < selected.size(); i++) {
+            records.add(selected.get(i).record());
+            recordNumbers[i] = selected.get(i).recordNumber();
+        }
+    }
+
+    /**
+     * The records with the largest absolute amounts, largest first; ties keep record order
+     */
+    static RecordSelection largestAmounts(BatchedRecords source, int limit) {
+        Comparator<Selected> byMagnitude = Comparator.comparing(Selected::magnitude)
+            .thenComparing(s -> -s.recordNumber());
+        PriorityQueue<Selected> smallestFirst = new PriorityQueue<>(byMagnitude);
+        int recordNumber = 0;
+        for (RecordBatch batch : source.batches()) {
+            for (int row = 0; row < batch.size(); row++) {
+                recordNumber++;
+                if (!batch.hasAmount(row)) {
+                    continue;
+                }
+                BigDecimal magnitude = batch.isMinorUnitAmount(row)
+                    ? BigDecimal.valueOf(batch.getAmountMinorUnits(row), AmountColumnParser.MINOR_UNIT_SCALE).abs()
+                    : batch.getAmount(row).abs();
+                if (smallestFirst.size() < limit) {
+                    smallestFirst.add(new Selected(recordNumber, magnitude, batch.get(row)));
+                } else if (magnitude.compareTo(smallestFirst.peek().magnitude()) > 0) {
+                    smallestFirst.poll();
+                    smallestFirst.add(new Selected(recordNumber, magnitude, batch.get(row)));
+                }
+            }
+        }
+        List<Selected> selected = new ArrayList<>(smallestFirst);
+        selected.sort(byMagnitude.reversed());
+        return new RecordSelection(source.getFieldNames(), selected);
+    }
+
+    /**
+     * A uniform random sample of the records (reservoir sampling), in record order
+     */
+    static RecordSelection sample(BatchedRecords source, int limit) {
+        SplittableRandom random = new SplittableRandom(SAMPLE_SEED);
+        List<Selected> reservoir = new ArrayList<>(Math.min(limit, RecordSpool.BATCH_SIZE));
+        int recordNumber = 0;
+        for (RecordBatch batch : source.batches()) {
+            for (int row = 0; row < batch.size(); row++) {
+                recordNumber++;
+                if (reservoir.size() < limit) {
+                    reservoir.add(new Selected(recordNumber, null, batch.get(row)));
+                } else {
+                    int slot = random.nextInt(recordNumber);
+                    if (slot < limit) {
+                        reservoir.set(slot, new Selected(recordNumber, null, batch.get(row)));
+                    }
+                }
+            }
+        }
+        reservoir.sort(Comparator.comparingInt(Selected::recordNumber));
+        return new RecordSelection(source.getFieldNames(), reservoir);
+    }
+
+    RecordBatch getRecords() {
+        return records;
+    }
+
+    /**
+     * 1-based number in the source of each selected row
+     */
+    int[] getRecordNumbers() {
+        return recordNumbers;
+    }
+
+    private record Selected(int recordNumber, BigDecimal magnitude, FinancialDataRecord record) {
+    }
+}
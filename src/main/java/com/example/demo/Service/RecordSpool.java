@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import com.example.demo.exception.FileProcessingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Disk-backed record buffer used by the streaming pipeline.
+ * Records are collected into columnar {@link RecordBatch}es of a bounded size; every full batch is
+ * written to a temp file and replayed on each pass, so heap usage does not grow with the number
+ * of rows. Field names are kept in one header dictionary shared by all batches; field values are
+ * kept as their string form, which is all the markdown renderer uses.
+ */
+@Slf4j
+public class RecordSpool extends AbstractCollection<FinancialDataRecord>
+        implements FinancialRecordSink, BatchedRecords, Closeable {
+
+    static final int BATCH_SIZE = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final DataOutputStream out;
+    private final RecordBatch.FieldDictionary fieldDictionary = new RecordBatch.FieldDictionary();
+    private final Set<DataInputStream> openReaders = Collections.newSetFromMap(new IdentityHashMap<>());
+    private RecordBatch pending;
+    private int spooledBatches;
+    private long peakBatchBytes;
+    private int size;
+    private boolean closed;
+
+    public RecordSpool() {
+        try {
+            this.path = Files.createTempFile("financial-records-", ".spool");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new FileProcessingException("Could not create record spool: " + e.getMessage(), e);
+        }
+        this.pending = newBatch();
+    }
+
+    @Override
+    public void accept(FinancialDataRecord record) {
+        add(record);
+    }
+
+    @Override
+    public boolean add(FinancialDataRecord record) {
+        ensureOpen();
+        pending.add(record);
+        size++;
+        if (pending.size() >= BATCH_SIZE) {
+            spoolPending();
+        }
+        return true;
+    }
+
+    /**
+     * Adds a bound row straight to the pending batch's columns
+     */
+    @Override
+    public void acceptRow(RecordRow row) {
+        ensureOpen();
+        pending.acceptRow(row);
+        size++;
+        if (pending.size() >= BATCH_SIZE) {
+            spoolPending();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<String> getFieldNames() {
+        return fieldDictionary.names();
+    }
+
+    /**
+     * Encoded size of the largest batch spooled so far, an estimate of the most memory the
+     * spool held at once. A batch that is still pending is not counted until it is spooled.
+     */
+    public long getPeakBatchBytes() {
+        return peakBatchBytes;
+    }
+
+    /**
+     * Replays the spooled batches from disk. Each batch is read only when the iteration reaches it.
+     */
+    @Override
+    public Iterable<RecordBatch> batches() {
+        return this::batchIterator;
+    }
+
+    @Override
+    public Iterator<FinancialDataRecord> iterator() {
+        Iterator<RecordBatch> batches = batchIterator();
+        return new Iterator<>() {
+            private RecordBatch batch;
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                while ((batch == null || row >= batch.size()) && batches.hasNext()) {
+                    batch = batches.next();
+                    row = 0;
+                }
+                return batch != null && row < batch.size();
+            }
+
+            @Override
+            public FinancialDataRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(row++);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (DataInputStream reader : openReaders) {
+            closeQuietly(reader);
+        }
+        openReaders.clear();
+        closeQuietly(out);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete record spool {}: {}", path, e.getMessage());
+        }
+    }
+
+    private Iterator<RecordBatch> batchIterator() {
+        ensureOpen();
+        if (pending.size() > 0) {
+            spoolPending();
+        }
+        try {
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+            openReaders.add(in);
+            return new SpoolIterator(in, spooledBatches);
+        } catch (IOException e) {
+            throw new FileProcessingException("Error reading record spool: " + e.getMessage(), e);
+        }
+    }
+
+    private void spoolPending() {
+        try {
+            int before = out.size();
+            pending.writeTo(out);
+            peakBatchBytes = Math.max(peakBatchBytes, out.size() - before);
+            spooledBatches++;
+            pending = newBatch();
+        } catch (IOException e) {
+            throw new FileProcessingException("Error writing record to spool: " + e.getMessage(), e);
+        }
+    }
+
+    private RecordBatch newBatch() {
+        return new RecordBatch(fieldDictionary, BATCH_SIZE);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Record spool is closed");
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Error closing record spool stream: {}", e.getMessage());
+        }
+    }
+
+    private class SpoolIterator implements Iterator<RecordBatch> {
+        private final DataInputStream in;
+        private final int limit;
+        private int position;
+
+        SpoolIterator(DataInputStream in, int limit) {
+            this.in = in;
+            this.limit = limit;
+            if (limit == 0) {
+                release();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < limit;
+        }
+
+        @Override
+        public RecordBatch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                RecordBatch batch = RecordBatch.readFrom(in, fieldDictionary);
+                if (++position == limit) {
+                    release();
+                }
+                return batch;
+            } catch (IOException e) {
+                release();
+                throw new FileProcessingException("Error reading record spool: " + e.getMessage(), e);
+            }
+        }
+
+        private void release() {
+            openReaders.remove(in);
+            closeQuietly(in);
+        }
+    }
+}
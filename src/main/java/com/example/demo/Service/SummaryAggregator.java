@@ -0,0 +1,290 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Single-pass aggregation of the report summary metrics.
+ * Can be fed row by row as a {@link FinancialRecordSink} while a file is parsed, or batch by
+ * batch from the columns of a {@link RecordBatch}. Amounts in minor units are totalled and ranged
+ * as longs; only exact decimals are compared as BigDecimals. Aggregators of different files merge into a
+ * combined one; categories and accounts keep the order in which they were first seen, so merging
+ * per-file aggregators in archive order gives the same result as aggregating the archive in one pass.
+ * Not thread-safe.
+ */
+public class SummaryAggregator implements FinancialRecordSink {
+
+    private long count;
+    private long recordsWithAmount;
+    private long recordsWithDate;
+    private final AmountTotal total = new AmountTotal();
+    // Range of the amounts in minor units; empty while the minimum is above the maximum
+    private long minimumUnits = Long.MAX_VALUE;
+    private long maximumUnits = Long.MIN_VALUE;
+    // Range of the exact decimal amounts
+    private BigDecimal minimum;
+    private BigDecimal maximum;
+    private final Map<String, Totals> categories = new LinkedHashMap<>();
+    private final Map<String, Totals> accounts = new LinkedHashMap<>();
+
+    /**
+     * Aggregates records that are already batched, reading their columns
+     */
+    public static SummaryAggregator of(BatchedRecords records) {
+        SummaryAggregator summary = new SummaryAggregator();
+        for (RecordBatch batch : records.batches()) {
+            summary.add(batch);
+        }
+        return summary;
+    }
+
+    @Override
+    public void accept(FinancialDataRecord record) {
+        accept(record.getCategory(), record.getAccount(), record.getDate() != null, record.getAmount());
+    }
+
+    private void accept(String category, String account, boolean hasDate, BigDecimal amount) {
+        count++;
+        if (hasDate) {
+            recordsWithDate++;
+        }
+        if (amount != null) {
+            recordsWithAmount++;
+            total.add(amount);
+            updateRange(amount);
+        }
+        addTo(categories, category, amount);
+        addTo(accounts, account, amount);
+    }
+
+    @Override
+    public void acceptRow(RecordRow row) {
+        if (!row.isMinorUnitAmount()) {
+            accept(row.getCategory(), row.getAccount(), row.hasDate(), row.getAmount());
+            return;
+        }
+        long units = row.getAmountMinorUnits();
+        count++;
+        if (row.hasDate()) {
+            recordsWithDate++;
+        }
+        recordsWithAmount++;
+        total.addMinorUnits(units);
+        updateRange(units);
+        Totals category = totalsFor(categories, row.getCategory());
+        if (category != null) {
+            category.total.addMinorUnits(units);
+        }
+        Totals account = totalsFor(accounts, row.getAccount());
+        if (account != null) {
+            account.total.addMinorUnits(units);
+        }
+    }
+
+    public void add(RecordBatch batch) {
+        count += batch.size();
+        recordsWithDate += batch.getDateCount();
+        recordsWithAmount += batch.getAmountCount();
+
+        RecordBatch.DictionaryColumn categoryColumn = batch.getCategories();
+        RecordBatch.DictionaryColumn accountColumn = batch.getAccounts();
+        Totals[] categoryTotals = new Totals[categoryColumn.cardinality()];
+        Totals[] accountTotals = new Totals[accountColumn.cardinality()];
+        long minUnits = Long.MAX_VALUE;
+        long maxUnits = Long.MIN_VALUE;
+
+        for (int row = 0; row < batch.size(); row++) {
+            Totals category = totalsFor(categoryTotals, categoryColumn.code(row));
+            Totals account = totalsFor(accountTotals, accountColumn.code(row));
+            if (batch.isMinorUnitAmount(row)) {
+                long units = batch.getAmountMinorUnits(row);
+                total.addMinorUnits(units);
+                minUnits = Math.min(minUnits, units);
+                maxUnits = Math.max(maxUnits, units);
+                if (category != null) {
+                    category.total.addMinorUnits(units);
+                }
+                if (account != null) {
+                    account.total.addMinorUnits(units);
+                }
+            } else if (batch.hasAmount(row)) {
+                BigDecimal amount = batch.getAmount(row);
+                total.add(amount);
+                updateRange(amount);
+                if (category != null) {
+                    category.total.add(amount);
+                }
+                if (account != null) {
+                    account.total.add(amount);
+                }
+            }
+        }
+
+        if (minUnits <= maxUnits) {
+            updateRange(minUnits);
+            updateRange(maxUnits);
+        }
+        // Dictionary codes are in first-seen order, so merging by code keeps that order
+        mergeCodes(categories, categoryColumn, categoryTotals);
+        mergeCodes(accounts, accountColumn, accountTotals);
+    }
+
+    /**
+     * Adds another aggregator's metrics to this one. Values first seen in the other aggregator
+     * are ordered after those already seen here.
+     */
+    public SummaryAggregator merge(SummaryAggregator other) {
+        count += other.count;
+        recordsWithAmount += other.recordsWithAmount;
+        recordsWithDate += other.recordsWithDate;
+        total.add(other.total);
+        if (other.minimumUnits <= other.maximumUnits) {
+            updateRange(other.minimumUnits);
+            updateRange(other.maximumUnits);
+        }
+        if (other.minimum != null) {
+            updateRange(other.minimum);
+            updateRange(other.maximum);
+        }
+        other.categories.forEach((name, totals) -> categories.computeIfAbsent(name, k -> new Totals()).add(totals));
+        other.accounts.forEach((name, totals) -> accounts.computeIfAbsent(name, k -> new Totals()).add(totals));
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getRecordsWithAmount() {
+        return recordsWithAmount;
+    }
+
+    public long getRecordsWithDate() {
+        return recordsWithDate;
+    }
+
+    public BigDecimal getTotal() {
+        return total.toBigDecimal();
+    }
+
+    /**
+     * Mean of the amounts rounded half-up to cents, or null if no record has an amount
+     */
+    public BigDecimal getAverage() {
+        if (recordsWithAmount == 0) {
+            return null;
+        }
+        return getTotal().divide(BigDecimal.valueOf(recordsWithAmount), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getMinimum() {
+        if (minimumUnits > maximumUnits) {
+            return minimum;
+        }
+        BigDecimal units = BigDecimal.valueOf(minimumUnits, AmountColumnParser.MINOR_UNIT_SCALE);
+        return minimum != null && minimum.compareTo(units) < 0 ? minimum : units;
+    }
+
+    public BigDecimal getMaximum() {
+        if (minimumUnits > maximumUnits) {
+            return maximum;
+        }
+        BigDecimal units = BigDecimal.valueOf(maximumUnits, AmountColumnParser.MINOR_UNIT_SCALE);
+        return maximum != null && maximum.compareTo(units) > 0 ? maximum : units;
+    }
+
+    /**
+     * Record count and amount total per non-empty category, in first-seen order
+     */
+    public Map<String, Totals> getCategories() {
+        return Collections.unmodifiableMap(categories);
+    }
+
+    /**
+     * Record count and amount total per non-empty account, in first-seen order
+     */
+    public Map<String, Totals> getAccounts() {
+        return Collections.unmodifiableMap(accounts);
+    }
+
+    private void updateRange(BigDecimal amount) {
+        if (minimum == null || amount.compareTo(minimum) < 0) {
+            minimum = amount;
+        }
+        if (maximum == null || amount.compareTo(maximum) > 0) {
+            maximum = amount;
+        }
+    }
+
+    private void updateRange(long units) {
+        minimumUnits = Math.min(minimumUnits, units);
+        maximumUnits = Math.max(maximumUnits, units);
+    }
+
+    /**
+     * Totals of a non-empty category or account with the record counted, or null for an empty one
+     */
+    private static Totals totalsFor(Map<String, Totals> groups, String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Totals totals = groups.computeIfAbsent(key, k -> new Totals());
+        totals.count++;
+        return totals;
+    }
+
+    private static void addTo(Map<String, Totals> groups, String key, BigDecimal amount) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        Totals totals = groups.computeIfAbsent(key, k -> new Totals());
+        totals.count++;
+        if (amount != null) {
+            totals.total.add(amount);
+        }
+    }
+
+    private static Totals totalsFor(Totals[] totals, int code) {
+        if (code < 0) {
+            return null;
+        }
+        if (totals[code] == null) {
+            totals[code] = new Totals();
+        }
+        totals[code].count++;
+        return totals[code];
+    }
+
+    private static void mergeCodes(Map<String, Totals> groups, RecordBatch.DictionaryColumn column, Totals[] totals) {
+        for (int code = 0; code < totals.length; code++) {
+            String key = column.valueOf(code);
+            if (totals[code] != null && !key.isEmpty()) {
+                groups.computeIfAbsent(key, k -> new Totals()).add(totals[code]);
+            }
+        }
+    }
+
+    /**
+     * Record count and amount total of one category or account
+     */
+    public static final class Totals {
+        private long count;
+        private final AmountTotal total = new AmountTotal();
+
+        public long getCount() {
+            return count;
+        }
+
+        public BigDecimal getTotal() {
+            return total.toBigDecimal();
+        }
+
+        private void add(Totals other) {
+            count += other.count;
+            total.add(other.total);
+        }
+    }
+}
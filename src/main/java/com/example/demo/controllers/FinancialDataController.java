@@ -1,21 +1,31 @@
 package com.example.demo.controllers;
 
-import com.example.demo.dto.ZipProcessingResult;
-import com.example.demo.service.FileTypeDetector;
-import com.example.demo.service.FinancialDataService;
-import com.example.demo.service.MarkdownConverterService;
+import com.example.demo.dto.CacheStatistics;
+import com.example.demo.dto.ConversionDiagnostics;
+import com.example.demo.dto.ConversionJobStatus;
+import com.example.demo.dto.MarkdownResponse;
+import com.example.demo.dto.ReportOptions;
+import com.example.demo.service.ConversionCache;
+import com.example.demo.service.ConversionJobService;
+import com.example.demo.service.ConversionProgress;
+import com.example.demo.service.ConversionService;
+import com.example.demo.service.HashedUpload;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -27,31 +37,53 @@ import java.time.format.DateTimeFormatter;
 @RequestMapping("/api/v1/financial-data")
 public class FinancialDataController {
     
-    private final FinancialDataService financialDataService;
-    private final MarkdownConverterService markdownConverterService;
-    private final FileTypeDetector fileTypeDetector;
+    private static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+    
+    private final ConversionService conversionService;
+    private final ConversionCache conversionCache;
+    private final ConversionJobService conversionJobService;
+    private final int defaultDetailPageSize;
     
     @Autowired
     public FinancialDataController(
-            FinancialDataService financialDataService,
-            MarkdownConverterService markdownConverterService,
-            FileTypeDetector fileTypeDetector) {
-        this.financialDataService = financialDataService;
-        this.markdownConverterService = markdownConverterService;
-        this.fileTypeDetector = fileTypeDetector;
+            ConversionService conversionService,
+            ConversionCache conversionCache,
+            ConversionJobService conversionJobService,
+            @Value("${financial-data.report.detail-page-size:0}") int defaultDetailPageSize) {
+        this.conversionService = conversionService;
+        this.conversionCache = conversionCache;
+        this.conversionJobService = conversionJobService;
+        this.defaultDetailPageSize = defaultDetailPageSize;
     }
     
     /**
      * Upload and convert financial data file to markdown
      * Supports single files (CSV, Excel, JSON, TXT) and ZIP archives containing multiple files
      * 
+     * The file is parsed on the bounded conversion pool before the response starts, so that
+     * processing errors still map to an error response (429 when the pool is saturated); the report itself is then streamed to the client section by section.
+     * Reports are cached by the content hash of the upload and the report options, so uploading
+     * the same file again is answered without parsing it.
+     * With {@code diagnostics=timing} the conversion always runs, bypassing the cache, and the
+     * response has a Server-Timing header with the stages before the report was streamed.
+     * 
      * @param file The financial data file (CSV, Excel, JSON, TXT, or ZIP)
+     * @param profile Report sections: full, summary, table, top or sample
+     * @param limit Number of records in a top or sample report
+     * @param page 1-based page of the detailed records
+     * @param pageSize Detailed records per page; 0 for all, defaults to financial-data.report.detail-page-size
+     * @param diagnostics none or timing; json is answered by {@link #convertWithDiagnostics}
      * @return Downloadable markdown file (.md)
      */
     @PostMapping(value = "/convert", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, 
                  produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<Resource> convertToMarkdown(
-            @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<StreamingResponseBody> convertToMarkdown(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "profile", defaultValue = "full") String profile,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "diagnostics", defaultValue = "none") String diagnostics) {
         
         log.info("Received file upload request: {}", file.getOriginalFilename());
         
@@ -59,71 +91,180 @@ public class FinancialDataController {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
+        ReportOptions options = ReportOptions.fromRequest(profile, limit, page, pageSize, defaultDetailPageSize);
+        ConversionDiagnostics.Mode diagnosticsMode = ConversionDiagnostics.Mode.fromParameter(diagnostics);
         
         String filename = file.getOriginalFilename() != null ? 
             file.getOriginalFilename() : "unknown";
         
-        try {
-            String markdown;
-            String outputFilename;
-            
-            // Check if it's a ZIP file
-            FileTypeDetector.FileType fileType = fileTypeDetector.detectFileType(file);
-            
-            if (fileType == FileTypeDetector.FileType.ZIP) {
-                // Process ZIP file
-                ZipProcessingResult zipResult = financialDataService.processZipFile(file);
-                
-                // Convert ZIP to markdown
-                markdown = markdownConverterService.convertZipToMarkdown(zipResult, filename);
-                
-                // Generate output filename
-                String baseName = filename.replaceAll("\\.[^.]*$", ""); // Remove extension
-                outputFilename = String.format("%s_report_%s.md", 
-                    baseName, 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
-                
-                log.info("Successfully processed ZIP file: {} with {} files and {} total records", 
-                    filename, zipResult.getTotalFiles(), zipResult.getAllRecords().size());
-            } else {
-                // Process single file
-                var records = financialDataService.processFile(file);
-                
-                // Convert to markdown
-                markdown = markdownConverterService.convertToMarkdown(records, filename);
-                
-                // Generate output filename
-                String baseName = filename.replaceAll("\\.[^.]*$", ""); // Remove extension
-                outputFilename = String.format("%s_report_%s.md", 
-                    baseName, 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
-                
-                log.info("Successfully processed file: {} with {} records", filename, records.size());
+        // The upload is read once, hashed on the way to a local copy that the parsers read
+        String cacheKey;
+        try (HashedUpload upload = HashedUpload.copyOf(file)) {
+            // Diagnostics describe a conversion that actually ran, so they never come from the cache
+            cacheKey = conversionCache.isEnabled() && diagnosticsMode == ConversionDiagnostics.Mode.NONE
+                ? ConversionCache.key(upload.getContentHash(), filename, options) : null;
+            byte[] cached = cacheKey != null ? conversionCache.get(cacheKey) : null;
+            if (cached != null) {
+                log.info("Serving cached report for file: {} ({} bytes)", filename, cached.length);
+                return markdownResponse(filename, outputStream -> outputStream.write(cached));
+            }
+            return convert(upload, filename, options, cacheKey, diagnosticsMode != ConversionDiagnostics.Mode.NONE);
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> convert(
+            MultipartFile file, String filename, ReportOptions options, String cacheKey, boolean serverTiming) {
+        ConversionService.PreparedReport report = prepare(file, filename, options);
+        
+        // Write the report straight to the response; no Content-Length, so it goes out chunked.
+        // A copy is kept for the cache while it is written; the spooled records are released after.
+        StreamingResponseBody body = outputStream -> {
+            try (report) {
+                ConversionCache.Recording recording = conversionCache.record(cacheKey, outputStream);
+                report.writeTo(recording, RESPONSE_BUFFER_SIZE);
+                recording.complete();
+            } catch (IOException e) {
+                log.warn("Error streaming markdown report for {}: {}", filename, e.getMessage());
+                throw e;
             }
-            
-            // Convert markdown string to bytes
-            byte[] markdownBytes = markdown.getBytes(StandardCharsets.UTF_8);
-            ByteArrayResource resource = new ByteArrayResource(markdownBytes);
-            
-            // Set headers for file download
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, 
-                String.format("attachment; filename=\"%s\"", outputFilename));
-            headers.add(HttpHeaders.CONTENT_TYPE, "text/markdown; charset=utf-8");
-            headers.add(HttpHeaders.CONTENT_LENGTH, String.valueOf(markdownBytes.length));
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(markdownBytes.length)
-                .contentType(MediaType.parseMediaType("text/markdown; charset=utf-8"))
-                .body(resource);
-            
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (serverTiming) {
+            // Rendering has not started yet, so the header covers the stages up to the report
+            headers.add("Server-Timing", report.getDiagnostics().toServerTiming());
+        }
+        return markdownResponse(filename, headers, body);
+    }
+    
+    /**
+     * Convert a file as {@code /convert} does and answer with a JSON document holding the report, the
+     * details of every file in a ZIP archive and where the time went: the time of every stage, rows
+     * read and skipped, date and amount parse failures and the most record data held in memory.
+     * The conversion always runs, bypassing the cache; the report is rendered in memory.
+     * 
+     * @return The report and its diagnostics
+     */
+    @PostMapping(value = "/convert", params = "diagnostics=json", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MarkdownResponse> convertWithDiagnostics(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "profile", defaultValue = "full") String profile,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        ReportOptions options = ReportOptions.fromRequest(profile, limit, page, pageSize, defaultDetailPageSize);
+        String filename = file.getOriginalFilename() != null ? 
+            file.getOriginalFilename() : "unknown";
+        
+        try (HashedUpload upload = HashedUpload.copyOf(file);
+             ConversionService.PreparedReport report = prepare(upload, filename, options)) {
+            StringWriter markdown = new StringWriter();
+            report.render(markdown);
+            return ResponseEntity.ok(report.toResponse(filename, markdown.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private ConversionService.PreparedReport prepare(MultipartFile file, String filename, ReportOptions options) {
+        try {
+            return conversionService.prepareOnExecutor(file, filename, options, new ConversionProgress());
         } catch (Exception e) {
             log.error("Error processing file: {}", filename, e);
             throw e;
         }
     }
     
+    private ResponseEntity<StreamingResponseBody> markdownResponse(String filename, StreamingResponseBody body) {
+        return markdownResponse(filename, new HttpHeaders(), body);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> markdownResponse(String filename, HttpHeaders headers,
+                                                                   StreamingResponseBody body) {
+        // Generate output filename
+        String baseName = filename.replaceAll("\\.[^.]*$", ""); // Remove extension
+        String outputFilename = String.format("%s_report_%s.md", 
+            baseName, 
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
+        
+        // Set headers for file download
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, 
+            String.format("attachment; filename=\"%s\"", outputFilename));
+        
+        return ResponseEntity.ok()
+            .headers(headers)
+            .contentType(MediaType.parseMediaType("text/markdown; charset=utf-8"))
+            .body(body);
+    }
+    
+    /**
+     * Submit a file for asynchronous conversion. Takes the same parameters as {@code /convert}.
+     * 
+     * @return 202 with the job status and its URL in the Location header, or 429 if the job queue is full
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ConversionJobStatus> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "profile", defaultValue = "full") String profile,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        ReportOptions options = ReportOptions.fromRequest(profile, limit, page, pageSize, defaultDetailPageSize);
+        String filename = file.getOriginalFilename() != null ? 
+            file.getOriginalFilename() : "unknown";
+        
+        ConversionJobStatus status = conversionJobService.submit(file, filename, options);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/v1/financial-data/jobs/" + status.getId()))
+            .body(status);
+    }
+    
+    /**
+     * State and progress of a conversion job: files done, records parsed and, once finished,
+     * when its result expires
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ConversionJobStatus> jobStatus(@PathVariable("id") String id) {
+        return ResponseEntity.ok(conversionJobService.getStatus(id));
+    }
+    
+    /**
+     * Download the report of a completed conversion job; 409 while the job is queued or running
+     */
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> jobResult(@PathVariable("id") String id) {
+        String filename = conversionJobService.getFilename(id);
+        // Opened now, so the job cannot expire between this request and the body being written
+        InputStream result;
+        try {
+            result = conversionJobService.openResult(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return markdownResponse(filename, outputStream -> {
+            try (result) {
+                result.transferTo(outputStream);
+            }
+        });
+    }
+    
+    /**
+     * Hit, miss and size counters of the conversion result cache
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> cacheStatistics() {
+        return ResponseEntity.ok(conversionCache.getStatistics());
+    }
+    
     /**
      * Health check endpoint
      */
@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hit, miss and size counters of the conversion result cache
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private boolean enabled;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private double hitRate;
+    private long memoryEntries;
+    private long memoryBytes;
+    private long memoryEvictions;
+    private boolean diskEnabled;
+    private long diskEntries;
+    private long diskBytes;
+    private long diskEvictions;
+}
@@ -0,0 +1,69 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cells of one column that could not be parsed as a date or an amount, with the first few bad values
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnParseFailures {
+
+    /** Bad values kept per column */
+    public static final int MAX_SAMPLES = 3;
+    /** Longest sample kept; longer values are cut short */
+    public static final int MAX_SAMPLE_LENGTH = 40;
+
+    /**
+     * What the column's cells were parsed as
+     */
+    public enum Kind {
+        DATE,
+        AMOUNT
+    }
+
+    private String column;
+    private Kind kind;
+    private long failures;
+    /** Distinct bad values in the order they were first seen */
+    private List<String> samples = new ArrayList<>();
+
+    public ColumnParseFailures(String column, Kind kind) {
+        this.column = column;
+        this.kind = kind;
+    }
+
+    /**
+     * Counts a cell that could not be parsed, keeping its value while there is room for samples
+     */
+    public void record(String value) {
+        failures++;
+        if (samples.size() < MAX_SAMPLES) {
+            String sample = value.length() > MAX_SAMPLE_LENGTH ? value.substring(0, MAX_SAMPLE_LENGTH) + "…" : value;
+            if (!samples.contains(sample)) {
+                samples.add(sample);
+            }
+        }
+    }
+
+    /**
+     * Adds the failures of the same column in another file; samples are kept while there is room
+     */
+    public void add(ColumnParseFailures other) {
+        failures += other.failures;
+        for (String sample : other.samples) {
+            if (samples.size() >= MAX_SAMPLES) {
+                break;
+            }
+            if (!samples.contains(sample)) {
+                samples.add(sample);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Where the time of one conversion went, and what its parsers read
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionDiagnostics {
+
+    /**
+     * How a conversion request asks for its diagnostics
+     */
+    public enum Mode {
+        /** No diagnostics; the report is served from the cache when possible */
+        NONE,
+        /** The markdown report with a Server-Timing header of the stages before it was streamed */
+        TIMING,
+        /** A JSON response holding the report, the file details and the diagnostics */
+        JSON;
+
+        public static Mode fromParameter(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown diagnostics mode: " + value);
+            }
+        }
+    }
+
+    /** Milliseconds spent in each stage, in the order the stages ran */
+    private Map<String, Double> stageMillis = new LinkedHashMap<>();
+    /** Totals over the parsed file, or over every entry of a ZIP archive */
+    private ParseDiagnostics parsing = new ParseDiagnostics();
+
+    /**
+     * Value of a Server-Timing header listing the stages timed so far
+     */
+    public String toServerTiming() {
+        StringBuilder timing = new StringBuilder();
+        stageMillis.forEach((stage, millis) -> {
+            if (!timing.isEmpty()) {
+                timing.append(", ");
+            }
+            timing.append(stage).append(";dur=").append(String.format(Locale.ROOT, "%.1f", millis));
+        });
+        return timing.toString();
+    }
+}
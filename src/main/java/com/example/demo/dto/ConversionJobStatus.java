@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * State and progress of an asynchronous conversion job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private String filename;
+    private State state;
+    private int totalFiles;
+    private int filesDone;
+    private long recordsParsed;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Instant expiresAt;
+    private Long resultSize;
+    private String errorMessage;
+}
@@ -26,4 +26,6 @@ public class MarkdownResponse {
     private List<ZipFileInfo> zipFileContents;
     private int totalFilesInZip;
     private int successfullyProcessedFiles;
+    /** Stage timings and parse counts, when the conversion was asked for diagnostics */
+    private ConversionDiagnostics diagnostics;
 }
@@ -0,0 +1,72 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row counts, parse failures and timing of parsing one file, or the totals of several
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParseDiagnostics {
+    /** Time spent parsing, in milliseconds */
+    private double parseMillis;
+    /** Rows, or JSON objects, read from the file, header rows included */
+    private long rowsRead;
+    /** Records kept from the rows read */
+    private long recordCount;
+    /** Date cells that could not be parsed */
+    private long dateParseFailures;
+    /** Amount cells that could not be parsed */
+    private long amountParseFailures;
+    /** Encoded size of the largest batch of records held in memory before it was spooled to disk */
+    private long peakBufferedBytes;
+    /** Date and amount parse failures per column, with sampled bad values */
+    @Builder.Default
+    private List<ColumnParseFailures> columnFailures = new ArrayList<>();
+
+    /**
+     * Rows read that did not become records: header rows, and the rows of a ZIP entry that failed
+     */
+    public long getSkippedRows() {
+        return Math.max(rowsRead - recordCount, 0);
+    }
+
+    /**
+     * Adds another file's counts to these; times add up, the peak is the larger one and failures of
+     * columns with the same name and kind are combined
+     */
+    public void add(ParseDiagnostics other) {
+        parseMillis += other.parseMillis;
+        rowsRead += other.rowsRead;
+        recordCount += other.recordCount;
+        dateParseFailures += other.dateParseFailures;
+        amountParseFailures += other.amountParseFailures;
+        peakBufferedBytes = Math.max(peakBufferedBytes, other.peakBufferedBytes);
+        for (ColumnParseFailures failures : other.columnFailures) {
+            addColumnFailures(failures);
+        }
+    }
+
+    /**
+     * Adds the failures of one column to those of the column with the same name and kind
+     */
+    public void addColumnFailures(ColumnParseFailures failures) {
+        for (ColumnParseFailures existing : columnFailures) {
+            if (existing.getKind() == failures.getKind() && existing.getColumn().equals(failures.getColumn())) {
+                existing.add(failures);
+                return;
+            }
+        }
+        ColumnParseFailures copy = new ColumnParseFailures(failures.getColumn(), failures.getKind());
+        copy.add(failures);
+        columnFailures.add(copy);
+    }
+}
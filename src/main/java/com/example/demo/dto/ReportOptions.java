@@ -0,0 +1,80 @@
+package com.example.demo.dto;
+
+import lombok.Value;
+
+import java.util.Locale;
+
+/**
+ * Sections and record selection of a markdown report
+ */
+@Value
+public class ReportOptions {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * The full report with every detailed record
+     */
+    public static final ReportOptions FULL = new ReportOptions(Profile.FULL, DEFAULT_LIMIT, 1, 0);
+
+    /**
+     * Which sections a report has
+     */
+    public enum Profile {
+        /** Summary, records table and detailed records */
+        FULL,
+        /** Summary only */
+        SUMMARY,
+        /** Summary and records table, without detailed records */
+        TABLE,
+        /** Summary, then table and details of the records with the largest amounts */
+        TOP,
+        /** Summary, then table and details of a random sample of the records */
+        SAMPLE;
+
+        public static Profile fromParameter(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown report profile: " + value);
+            }
+        }
+    }
+
+    Profile profile;
+    /** Number of records selected by the top and sample profiles */
+    int limit;
+    /** 1-based page of the detailed records */
+    int page;
+    /** Detailed records per page; 0 for all of them */
+    int pageSize;
+
+    public ReportOptions(Profile profile, int limit, int page, int pageSize) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        if (page < 1) {
+            throw new IllegalArgumentException("page must be at least 1");
+        }
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("pageSize must not be negative");
+        }
+        this.profile = profile;
+        this.limit = limit;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Options from request parameters; a missing page size falls back to the configured default
+     */
+    public static ReportOptions fromRequest(String profile, int limit, int page, Integer pageSize,
+                                            int defaultPageSize) {
+        return new ReportOptions(Profile.fromParameter(profile), limit, page,
+            pageSize != null ? pageSize : defaultPageSize);
+    }
+
+    public boolean isPaged() {
+        return pageSize > 0;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.demo.dto;
 
+import com.example.demo.service.SummaryAggregator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Information about a file extracted from a ZIP archive
  */
@@ -18,4 +22,19 @@ public class ZipFileInfo {
     private int recordCount;
     private boolean processed;
     private String errorMessage;
+    
+    /** Parse time, rows read, skipped rows and parse failures of the file */
+    private ParseDiagnostics diagnostics;
+    
+    /** Summary metrics of the file's records, aggregated while it was parsed */
+    @JsonIgnore
+    private SummaryAggregator summary;
+    
+    /** Index of the file's first record among the archive's records; its records follow on from it */
+    @JsonIgnore
+    private int firstRecord;
+    
+    /** Names of the fields present in the file's records, in first-seen order */
+    @JsonIgnore
+    private List<String> fieldNames;
 }
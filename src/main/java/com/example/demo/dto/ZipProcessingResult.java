@@ -3,9 +3,9 @@ package com.example.demo.dto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,10 +13,9 @@ import java.util.List;
  */
 @Data
 @Builder
-@NoArgsConstructor
 @AllArgsConstructor
 public class ZipProcessingResult {
-    private List<FinancialDataRecord> allRecords;
+    private Collection<FinancialDataRecord> allRecords;
     private List<ZipFileInfo> fileInfos;
     private int totalFiles;
     private int successfullyProcessedFiles;
@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Exception for conversions rejected because every conversion thread is busy and the queue is full
+ */
+public class ConversionBusyException extends RuntimeException {
+    public ConversionBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
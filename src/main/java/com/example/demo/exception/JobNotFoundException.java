@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Exception for conversion jobs that do not exist or whose results have expired
+ */
+public class JobNotFoundException extends RuntimeException {
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Exception for result downloads of conversion jobs that have not completed
+ */
+public class JobNotReadyException extends RuntimeException {
+    public JobNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Exception for conversion jobs rejected because the job queue is full
+ */
+public class JobQueueFullException extends RuntimeException {
+    public JobQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountColumnParserTests {
+
+	@Test
+	void parsesCommonFormatsToMinorUnits() {
+		AmountColumnParser parser = new AmountColumnParser();
+		assertMinorUnits(parser, "1234.56", 123456);
+		assertMinorUnits(parser, "$1,234.56", 123456);
+		assertMinorUnits(parser, "-75", -7500);
+		assertMinorUnits(parser, "(1,200.00)", -120000);
+		assertMinorUnits(parser, "12.50-", -1250);
+		assertMinorUnits(parser, "USD 5000.0", 500000);
+	}
+
+	@Test
+	void longNumbersThatDoNotFitInMinorUnitsStayExact() {
+		AmountColumnParser parser = new AmountColumnParser();
+		assertMinorUnits(parser, "9999999999999999", 999999999999999900L);
+		assertMinorUnits(parser, "-9999999999999999.99", -999999999999999999L);
+		assertEquals(new BigDecimal("99999999999999999"), parser.parseDecimal("99999999999999999"));
+		assertEquals(new BigDecimal("123456789012345678"), parser.parseDecimal("123456789012345678"));
+		assertEquals(new BigDecimal("-1234567890123456789.5"), parser.parseDecimal("-1234567890123456789.5"));
+		assertEquals(AmountColumnParser.DECIMAL, parser.parse("99999999999999999.5"));
+	}
+
+	@Test
+	void decimalCommaIsDecidedOnceForTheColumn() {
+		AmountColumnParser parser = new AmountColumnParser();
+		assertMinorUnits(parser, "1,234", 123400);
+		assertNull(parser.getDecimalSeparator());
+		assertMinorUnits(parser, "1.234,56 €", 123456);
+		assertTrue(parser.isDecimalComma());
+		// "1,234" was read with a decimal point before the column turned out to use commas
+		assertTrue(parser.isAmbiguous());
+		assertMinorUnits(parser, "1.234", 123400);
+		assertMinorUnits(parser, "12,5", 1250);
+	}
+
+	@Test
+	void valuesThatOnlyFitTheOtherSeparatorAreReadAsWrittenAndFlagTheColumn() {
+		AmountColumnParser commas = new AmountColumnParser();
+		assertMinorUnits(commas, "1.234,56", 123456);
+		assertFalse(commas.isAmbiguous());
+		assertEquals(new BigDecimal("0.005"), commas.parseDecimal("0.005"));
+		assertTrue(commas.isAmbiguous());
+		assertEquals(AmountColumnParser.DecimalSeparator.COMMA, commas.getDecimalSeparator());
+		assertMinorUnits(commas, "12.345", 1234500);
+
+		AmountColumnParser dots = new AmountColumnParser();
+		assertMinorUnits(dots, "1.50", 150);
+		assertMinorUnits(dots, "1,234", 123400);
+		assertFalse(dots.isAmbiguous());
+		assertMinorUnits(dots, "1,5", 150);
+		assertTrue(dots.isAmbiguous());
+		assertMinorUnits(dots, "1,234", 123400);
+	}
+
+	@Test
+	void columnsWhoseSampleFitsBothSeparatorsAreAmbiguous() {
+		AmountColumnParser parser = new AmountColumnParser(2);
+		assertMinorUnits(parser, "1,234", 123400);
+		assertTrue(parser.isAmbiguous());
+		assertMinorUnits(parser, "5,678", 567800);
+		assertEquals(AmountColumnParser.DecimalSeparator.DOT, parser.getDecimalSeparator());
+		assertTrue(parser.isAmbiguous());
+		assertFalse(new AmountColumnParser().isAmbiguous());
+	}
+
+	@Test
+	void extraPrecisionFallsBackToBigDecimal() {
+		AmountColumnParser parser = new AmountColumnParser();
+		assertEquals(new BigDecimal("12.3456"), parser.parseDecimal("12.3456"));
+		assertEquals(AmountColumnParser.DECIMAL, parser.parse("1.2345678E7"));
+		assertEquals(0, new BigDecimal("12345678").compareTo(parser.getDecimal()));
+		assertEquals(new BigDecimal("12345678901234567890.12"), parser.parseDecimal("12,345,678,901,234,567,890.12"));
+	}
+
+	@Test
+	void blankAndMalformedValues() {
+		AmountColumnParser parser = new AmountColumnParser();
+		assertEquals(AmountColumnParser.BLANK, parser.parse(""));
+		assertNull(parser.parseDecimal("N/A"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("2026-01-31"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("(12.00"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("1.234.56,7.8"));
+	}
+
+	@Test
+	void separatorsMustGroupByThreeAndSignsMustNotBeCombined() {
+		AmountColumnParser parser = new AmountColumnParser();
+		for (String value : new String[] {"1.2.3", "1.5.", "12,34,567", "1,23.45", "1.234.5", "1.,5", "12.34,5"}) {
+			assertThrows(IllegalArgumentException.class, () -> parser.parse(value), value);
+		}
+		for (String value : new String[] {"-(5)", "(-5)", "(5)-"}) {
+			assertThrows(IllegalArgumentException.class, () -> parser.parse(value), value);
+		}
+		assertMinorUnits(parser, "1,234,567.89", 123456789);
+		assertMinorUnits(parser, "-5", -500);
+		assertMinorUnits(parser, "(5)", -500);
+	}
+
+	private static void assertMinorUnits(AmountColumnParser parser, String value, long expected) {
+		assertEquals(AmountColumnParser.MINOR_UNITS, parser.parse(value), value);
+		assertEquals(expected, parser.getMinorUnits(), value);
+	}
+}
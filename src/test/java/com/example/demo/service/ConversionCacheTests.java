@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CacheStatistics;
+import com.example.demo.dto.ReportOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionCacheTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void keyDependsOnContentFilenameAndOptions() {
+		String key = ConversionCache.key("abc", "data.csv", ReportOptions.FULL);
+		assertEquals(key, ConversionCache.key("abc", "data.csv", ReportOptions.FULL));
+		assertNotEquals(key, ConversionCache.key("abd", "data.csv", ReportOptions.FULL));
+		assertNotEquals(key, ConversionCache.key("abc", "other.csv", ReportOptions.FULL));
+		assertNotEquals(key, ConversionCache.key("abc", "data.csv",
+			new ReportOptions(ReportOptions.Profile.SUMMARY, ReportOptions.DEFAULT_LIMIT, 1, 0)));
+	}
+
+	@Test
+	void diskTierSurvivesRestartsAndEvictsLeastRecentlyUsed() {
+		ConversionCache cache = cache(DataSize.ofBytes(25));
+		cache.put("a", new byte[10]);
+		cache.put("b", new byte[10]);
+		assertNotNull(cache.get("a"));
+		cache.put("c", new byte[10]);
+
+		ConversionCache restarted = cache(DataSize.ofBytes(25));
+		assertNotNull(restarted.get("a"));
+		assertNull(restarted.get("b"));
+		assertNotNull(restarted.get("c"));
+
+		CacheStatistics statistics = restarted.getStatistics();
+		assertEquals(2, statistics.getDiskHits());
+		assertEquals(1, statistics.getMisses());
+		assertEquals(20, statistics.getDiskBytes());
+	}
+
+	@Test
+	void recordingCachesCompleteReportsUpToTheEntrySize() throws IOException {
+		ConversionCache cache = cache(DataSize.ofMegabytes(1));
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		ConversionCache.Recording recording = cache.record("small", response);
+		recording.write("# Report".getBytes());
+		recording.complete();
+		assertArrayEquals(response.toByteArray(), cache.get("small"));
+
+		ConversionCache.Recording large = cache.record("large", new ByteArrayOutputStream());
+		large.write(new byte[2048]);
+		large.complete();
+		assertNull(cache.get("large"));
+	}
+
+	private ConversionCache cache(DataSize diskMaxSize) {
+		return new ConversionCache(true, DataSize.ofMegabytes(1), DataSize.ofKilobytes(1),
+			directory.toString(), diskMaxSize);
+	}
+}
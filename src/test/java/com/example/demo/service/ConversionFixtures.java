@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The conversion services wired the way the application wires them, on small worker pools.
+ * Closing the fixtures shuts the pools down.
+ */
+class ConversionFixtures implements AutoCloseable {
+
+	static final String CSV = "Date,Amount,Description\n2026-01-01,10.00,Coffee\n2026-01-02,-5.50,Refund\n";
+
+	final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	final ConversionMetrics metrics = new ConversionMetrics(registry);
+	final ThreadPoolExecutor zipEntryExecutor;
+	// One worker and one queue slot each, so that tests can fill them up
+	final ThreadPoolExecutor conversionExecutor = singleSlotPool();
+	final ThreadPoolExecutor jobExecutor = singleSlotPool();
+	final FinancialDataService financialDataService;
+	final ConversionService conversionService;
+
+	ConversionFixtures() {
+		this((ThreadPoolExecutor) Executors.newFixedThreadPool(1));
+	}
+
+	/**
+	 * @param zipEntryExecutor pool parsing ZIP entries; it is shut down with the fixtures
+	 */
+	ConversionFixtures(ThreadPoolExecutor zipEntryExecutor) {
+		this.zipEntryExecutor = zipEntryExecutor;
+		this.financialDataService = new FinancialDataService(new FileTypeDetector(),
+			new JsonEventReader(new ObjectMapper()), new ExcelEventReader(false),
+			new CsvEventReader(CsvEventReader.Engine.FAST), zipEntryExecutor, metrics);
+		this.conversionService = new ConversionService(financialDataService, new MarkdownConverterService(),
+			new FileTypeDetector(), conversionExecutor, metrics);
+	}
+
+	/**
+	 * Job service running jobs on the job pool, without a result cache
+	 */
+	ConversionJobService jobService(ConversionService conversions) {
+		return new ConversionJobService(conversions,
+			new ConversionCache(false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), "", DataSize.ofMegabytes(1)),
+			jobExecutor, Duration.ofMinutes(30));
+	}
+
+	static MockMultipartFile csv(String content) {
+		return new MockMultipartFile("file", "data.csv", "text/csv", content.getBytes());
+	}
+
+	/**
+	 * ZIP upload of the given entry names and contents
+	 */
+	static MockMultipartFile zip(String... entries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(entries[i]));
+				zip.write(entries[i + 1].getBytes());
+			}
+		}
+		return new MockMultipartFile("file", "bundle.zip", "application/zip", bytes.toByteArray());
+	}
+
+	@Override
+	public void close() {
+		jobExecutor.shutdownNow();
+		conversionExecutor.shutdownNow();
+		zipEntryExecutor.shutdownNow();
+	}
+
+	private static ThreadPoolExecutor singleSlotPool() {
+		return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ConversionJobStatus;
+import com.example.demo.dto.ReportOptions;
+import com.example.demo.exception.JobNotFoundException;
+import com.example.demo.exception.JobQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.example.demo.service.ConversionFixtures.CSV;
+import static com.example.demo.service.ConversionFixtures.csv;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionJobServiceTests {
+
+	private final ConversionFixtures fixtures = new ConversionFixtures();
+	private final ThreadPoolExecutor jobExecutor = fixtures.jobExecutor;
+	private final ConversionService conversionService = fixtures.conversionService;
+	private final ConversionJobService jobs = fixtures.jobService(conversionService);
+
+	@AfterEach
+	void shutDown() {
+		jobs.deleteResults();
+		fixtures.close();
+	}
+
+	@Test
+	void completedJobHasProgressAndTheSameReportAsAConversion() throws Exception {
+		ConversionJobStatus submitted = jobs.submit(csv(CSV), "data.csv", ReportOptions.FULL);
+		ConversionJobStatus status = awaitFinished(submitted.getId());
+
+		assertEquals(ConversionJobStatus.State.COMPLETED, status.getState());
+		assertEquals(2, status.getRecordsParsed());
+		assertEquals(1, status.getFilesDone());
+		assertNotNull(status.getExpiresAt());
+		String expected;
+		try (ConversionService.PreparedReport report =
+				conversionService.prepare(csv(CSV), "data.csv", ReportOptions.FULL, new ConversionProgress())) {
+			StringWriter writer = new StringWriter();
+			report.render(writer);
+			expected = writer.toString();
+		}
+		try (InputStream result = jobs.openResult(submitted.getId())) {
+			assertEquals(expected, new String(result.readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		jobs.removeExpired(Instant.now().plus(Duration.ofHours(1)));
+		assertThrows(JobNotFoundException.class, () -> jobs.getStatus(submitted.getId()));
+	}
+
+	@Test
+	void resultsBeingDownloadedOutliveTheirExpiry() throws Exception {
+		String id = jobs.submit(csv(CSV), "data.csv", ReportOptions.FULL).getId();
+		awaitFinished(id);
+		Instant afterExpiry = Instant.now().plus(Duration.ofHours(1));
+
+		try (InputStream result = jobs.openResult(id)) {
+			jobs.removeExpired(afterExpiry);
+			assertEquals(ConversionJobStatus.State.COMPLETED, jobs.getStatus(id).getState());
+			assertTrue(result.readAllBytes().length > 0);
+		}
+		jobs.removeExpired(afterExpiry);
+		assertThrows(JobNotFoundException.class, () -> jobs.openResult(id));
+	}
+
+	@Test
+	void errorsFailTheJobAndLetItExpire() throws Exception {
+		ConversionJobService failing = fixtures.jobService(new ConversionService(fixtures.financialDataService,
+				new MarkdownConverterService(), new FileTypeDetector(), fixtures.conversionExecutor, fixtures.metrics) {
+			@Override
+			public PreparedReport prepare(MultipartFile file, String filename, ReportOptions options,
+										  ConversionProgress progress) {
+				throw new OutOfMemoryError();
+			}
+		});
+		ConversionJobStatus status = awaitFinished(failing, failing.submit(csv(CSV), "data.csv", ReportOptions.FULL).getId());
+
+		assertEquals(ConversionJobStatus.State.FAILED, status.getState());
+		assertEquals("OutOfMemoryError", status.getErrorMessage());
+		assertNotNull(status.getExpiresAt());
+	}
+
+	@Test
+	void submissionsBeyondTheQueueAreRejected() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		jobExecutor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			jobs.submit(csv(CSV), "queued.csv", ReportOptions.FULL);
+			assertThrows(JobQueueFullException.class, () -> jobs.submit(csv(CSV), "rejected.csv", ReportOptions.FULL));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	private ConversionJobStatus awaitFinished(String id) throws InterruptedException {
+		return awaitFinished(jobs, id);
+	}
+
+	private static ConversionJobStatus awaitFinished(ConversionJobService jobs, String id) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			ConversionJobStatus status = jobs.getStatus(id);
+			if (status.getState() == ConversionJobStatus.State.COMPLETED
+					|| status.getState() == ConversionJobStatus.State.FAILED) {
+				return status;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Job " + id + " did not finish");
+	}
+}
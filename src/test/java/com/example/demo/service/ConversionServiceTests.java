@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MarkdownResponse;
+import com.example.demo.dto.ParseDiagnostics;
+import com.example.demo.dto.ReportOptions;
+import com.example.demo.exception.ConversionBusyException;
+import com.example.demo.exception.FileProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.example.demo.service.ConversionFixtures.CSV;
+import static com.example.demo.service.ConversionFixtures.csv;
+import static com.example.demo.service.ConversionFixtures.zip;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionServiceTests {
+
+	private final ConversionFixtures fixtures = new ConversionFixtures();
+	private final ThreadPoolExecutor conversionExecutor = fixtures.conversionExecutor;
+	private final SimpleMeterRegistry registry = fixtures.registry;
+	private final ConversionService conversionService = fixtures.conversionService;
+
+	@AfterEach
+	void shutDown() {
+		fixtures.close();
+	}
+
+	@Test
+	void executorPreparesTheSameReportAndPassesFailuresThrough() throws IOException {
+		assertEquals(render(conversionService.prepare(csv(CSV), "data.csv", ReportOptions.FULL, new ConversionProgress())),
+			render(conversionService.prepareOnExecutor(csv(CSV), "data.csv", ReportOptions.FULL, new ConversionProgress())));
+
+		assertThrows(FileProcessingException.class, () -> conversionService.prepareOnExecutor(
+			new MockMultipartFile("file", "bad.json", "application/json", "[{\"Amount\":".getBytes()), "bad.json",
+			ReportOptions.FULL, new ConversionProgress()));
+	}
+
+	@Test
+	void saturatedExecutorRejectsConversions() {
+		CountDownLatch release = new CountDownLatch(1);
+		Runnable blocker = () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		conversionExecutor.execute(blocker);
+		conversionExecutor.execute(blocker);
+		try {
+			assertThrows(ConversionBusyException.class, () -> conversionService.prepareOnExecutor(
+				csv(CSV), "data.csv", ReportOptions.FULL, new ConversionProgress()));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void zipReportTabulatesEachFileFromItsRangeOfRecords() throws IOException {
+		MockMultipartFile file = zip("a.csv", CSV, "b.csv", "Date,Amount,Memo\n2026-02-01,7.25,Lunch\n");
+
+		String report = render(conversionService.prepare(file, "bundle.zip",
+			new ReportOptions(ReportOptions.Profile.TABLE, ReportOptions.DEFAULT_LIMIT, 1, 0), new ConversionProgress()));
+		String fileB = report.substring(report.indexOf("### File: b.csv (1 records)"));
+
+		assertTrue(report.contains("### File: a.csv (2 records)"));
+		assertTrue(fileB.contains("| Total Amount | $7.25 |"));
+		assertTrue(fileB.contains("| # | Amount | Date | Memo | \n"));
+		assertTrue(fileB.contains("| 3 | $7.25 | 2026-02-01 | Lunch | \n"));
+		assertFalse(fileB.contains("Coffee"));
+	}
+
+	@Test
+	void conversionsAreMeteredByStageAndFormat() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ConversionService.PreparedReport report =
+				conversionService.prepare(csv(CSV), "data.csv", ReportOptions.FULL, new ConversionProgress())) {
+			assertEquals(1.0, registry.get("conversion.in.flight").gauge().value());
+			report.writeTo(out, 1024);
+		}
+		assertThrows(FileProcessingException.class, () -> conversionService.prepare(
+			new MockMultipartFile("file", "bad.json", "application/json", "[{\"Amount\":".getBytes()), "bad.json",
+			ReportOptions.FULL, new ConversionProgress()));
+
+		assertEquals(0.0, registry.get("conversion.in.flight").gauge().value());
+		assertEquals(2.0, registry.get("conversion.records").tag("format", "csv").counter().count());
+		assertEquals(CSV.length(), registry.get("conversion.bytes.in").tag("format", "csv").summary().totalAmount());
+		assertEquals(out.size(), registry.get("conversion.bytes.out").summary().totalAmount());
+		for (String stage : new String[] {"detect", "parse", "render"}) {
+			assertEquals(1, registry.get("conversion.stage").tag("stage", stage).tag("format", "csv").timer().count());
+		}
+		assertEquals(1.0, registry.get("conversion.failures").tag("stage", "parse")
+			.tag("exception", "FileProcessingException").counter().count());
+	}
+
+	@Test
+	void errorsStillReleaseTheInFlightCount() {
+		MockMultipartFile file = new MockMultipartFile("file", "data.csv", "text/csv", CSV.getBytes()) {
+			@Override
+			public InputStream getInputStream() {
+				throw new OutOfMemoryError("upload buffer");
+			}
+		};
+		assertThrows(OutOfMemoryError.class,
+			() -> conversionService.prepare(file, "data.csv", ReportOptions.FULL, new ConversionProgress()));
+
+		assertEquals(0.0, registry.get("conversion.in.flight").gauge().value());
+		assertEquals(1.0, registry.get("conversion.failures").tag("exception", "OutOfMemoryError").counter().count());
+	}
+
+	@Test
+	void diagnosticsCountRowsAndFailuresPerEntryAndTimeEachStage() throws IOException {
+		MockMultipartFile file = zip("a.csv", CSV + "someday,1.00,Bad date\n", "b.json", "[{\"Amount\":");
+
+		try (ConversionService.PreparedReport report =
+				conversionService.prepare(file, "bundle.zip", ReportOptions.FULL, new ConversionProgress())) {
+			report.render(new StringWriter());
+			MarkdownResponse response = report.toResponse("bundle.zip", "");
+
+			ParseDiagnostics a = response.getZipFileContents().get(0).getDiagnostics();
+			assertEquals(4, a.getRowsRead());
+			assertEquals(3, a.getRecordCount());
+			assertEquals(1, a.getSkippedRows());
+			assertEquals(1, a.getDateParseFailures());
+			assertTrue(a.getPeakBufferedBytes() > 0);
+			assertFalse(response.getZipFileContents().get(1).isProcessed());
+			assertEquals(List.of("detect", "unzip", "render"),
+				List.copyOf(response.getDiagnostics().getStageMillis().keySet()));
+			assertEquals(3, response.getDiagnostics().getParsing().getRecordCount());
+			assertTrue(response.getDiagnostics().toServerTiming().startsWith("detect;dur="));
+		}
+	}
+
+	@Test
+	void parseFailuresAreAggregatedPerColumnWithSampledValues() throws IOException {
+		StringBuilder content = new StringBuilder(CSV);
+		for (int i = 0; i < 5; i++) {
+			content.append("someday").append(i % 4).append(",1.00,Bad date\n");
+		}
+		content.append("2026-01-03,1-2,Bad amount\n");
+
+		String markdown = render(conversionService.prepare(csv(content.toString()), "data.csv", ReportOptions.FULL,
+			new ConversionProgress()));
+
+		assertTrue(markdown.contains("## Parse Warnings\n\n"
+			+ "| Column | Parsed As | Unparsed Cells | Sample Values |\n"
+			+ "|--------|-----------|----------------|---------------|\n"
+			+ "| Date | Date | 5 | \"someday0\", \"someday1\", \"someday2\" |\n"
+			+ "| Amount | Amount | 1 | \"1-2\" |\n"), markdown);
+		assertEquals(5.0, registry.get("conversion.parse.failures").tag("format", "csv").tag("kind", "date")
+			.counter().count());
+		assertEquals(1.0, registry.get("conversion.parse.failures").tag("kind", "amount").counter().count());
+	}
+
+	private static String render(ConversionService.PreparedReport prepared) throws IOException {
+		try (ConversionService.PreparedReport report = prepared) {
+			StringWriter writer = new StringWriter();
+			report.render(writer);
+			return writer.toString();
+		}
+	}
+}
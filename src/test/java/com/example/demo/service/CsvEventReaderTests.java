@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvEventReaderTests {
+
+	@Test
+	void fastEngineHandlesQuotesEmbeddedLineBreaksAndCrlf() throws IOException {
+		String csv = "\uFEFFDate,Description ,Amount\r\n"
+			+ "2026-01-01,\"Coffee, large\",\"1,234.50\"\r\n"
+			+ "2026-01-02, \"Said \"\"hi\"\"\nthen left\" ,-5\r"
+			+ "2026-01-03,ünïcødé,7";
+
+		List<List<String>> rows = read(CsvEventReader.Engine.FAST, csv.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(List.of(
+			List.of("Date", "Description", "Amount"),
+			List.of("2026-01-01", "Coffee, large", "1,234.50"),
+			List.of("2026-01-02", "Said \"hi\"\nthen left", "-5"),
+			List.of("2026-01-03", "ünïcødé", "7")), rows);
+	}
+
+	@Test
+	void enginesAgreeOnRowsSpanningBufferRefills() throws IOException {
+		StringBuilder csv = new StringBuilder("Date,Amount,Description\n");
+		csv.append("2026-01-01,1.00,\"").append("x".repeat(100_000)).append("\"\n");
+		for (int i = 0; i < 5_000; i++) {
+			csv.append("2026-01-02,").append(i).append(",Row ").append(i).append('\n');
+		}
+		csv.append('\n');
+		byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+		List<List<String>> fast = read(CsvEventReader.Engine.FAST, bytes);
+		assertEquals(read(CsvEventReader.Engine.OPENCSV, bytes), fast);
+		assertEquals(5_003, fast.size());
+		assertEquals(List.of(""), fast.get(fast.size() - 1));
+	}
+
+	@Test
+	void utf16FilesAreReadByTheirByteOrderMark() throws IOException {
+		byte[] bytes = "\uFEFFDate,Amount\n2026-01-01,1.00\n".getBytes(StandardCharsets.UTF_16LE);
+
+		assertEquals(List.of(List.of("Date", "Amount"), List.of("2026-01-01", "1.00")),
+			read(CsvEventReader.Engine.FAST, bytes));
+	}
+
+	@Test
+	void sniffsTheDelimiterThatSplitsEveryLineAlike() throws IOException {
+		assertEquals('\t', CsvEventReader.sniffDelimiter(bytes("Date\tAmount\tNote\r\n2026-01-01\t1,50\tA, B\r\n"), true));
+		assertEquals(';', CsvEventReader.sniffDelimiter(bytes("Date;Amount;Note\n2026-01-01;1,50;x\n2026-01-02;2,75;y\n"), true));
+		assertEquals('|', CsvEventReader.sniffDelimiter(bytes("Date|Note\n2026-01-01|\"a, b, c\"\n"), true));
+
+		List<List<String>> rows = new ArrayList<>();
+		new CsvEventReader(CsvEventReader.Engine.FAST).readSniffed(
+			new ByteArrayInputStream(bytes("Date|Note\r\n2026-01-01|\"a, b|c\"\r\n")),
+			row -> rows.add(List.of(row.cell(0), row.cell(1))));
+		assertEquals(List.of(List.of("Date", "Note"), List.of("2026-01-01", "a, b|c")), rows);
+	}
+
+	@Test
+	void tokenizedRowsBindLikeTheirDecodedCells() throws IOException {
+		String csv = "Date,Amount,Description,Extra\n"
+			+ "2026-01-01, 12.50 ,Coffee,x\n"
+			+ "01/02/2026,\"1,234.50\",Café crème\n"
+			+ "not a date,12,4 €,y,past the header\n"
+			+ "2026-01-04,ü12-3,,z\n";
+
+		RecordBinder tokenized = new RecordBinder();
+		RecordBinder decoded = new RecordBinder();
+		List<FinancialDataRecord> fromRows = new ArrayList<>();
+		List<FinancialDataRecord> fromCells = new ArrayList<>();
+		boolean[] header = {true};
+		new CsvEventReader(CsvEventReader.Engine.FAST).read(new ByteArrayInputStream(bytes(csv)), row -> {
+			String[] cells = new String[row.size()];
+			for (int i = 0; i < cells.length; i++) {
+				cells[i] = row.cell(i);
+			}
+			if (header[0]) {
+				header[0] = false;
+				tokenized.setHeaders(row);
+				decoded.setHeaders(cells);
+				return;
+			}
+			fromRows.add(tokenized.bind(row));
+			fromCells.add(decoded.bind(cells));
+		});
+
+		assertEquals(4, fromRows.size());
+		assertEquals(fromCells, fromRows);
+		assertEquals(new BigDecimal("1234.50"), fromRows.get(1).getAmount());
+		assertEquals("Café crème", fromRows.get(1).getDescription());
+		assertEquals(decoded.getColumnFailures(), tokenized.getColumnFailures());
+		assertEquals(1, tokenized.getDateParseFailures());
+		assertEquals(1, tokenized.getAmountParseFailures());
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<List<String>> read(CsvEventReader.Engine engine, byte[] bytes) throws IOException {
+		List<List<String>> rows = new ArrayList<>();
+		new CsvEventReader(engine).read(new ByteArrayInputStream(bytes), row -> {
+			List<String> cells = new ArrayList<>();
+			for (int i = 0; i < row.size(); i++) {
+				cells.add(row.cell(i));
+			}
+			rows.add(cells);
+		});
+		return rows;
+	}
+}
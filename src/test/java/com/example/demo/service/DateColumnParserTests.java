@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateColumnParserTests {
+
+	@Test
+	void locksIsoColumnOnFirstValue() {
+		DateColumnParser parser = new DateColumnParser();
+		assertEquals(LocalDate.of(2026, 1, 31), parser.parse("2026-01-31"));
+		assertEquals(DateColumnParser.Layout.ISO, parser.getLayout());
+		assertEquals(LocalDate.of(2026, 2, 1), parser.parse(" 2026-02-01 "));
+		assertEquals(0, parser.getFallbackCount());
+	}
+
+	@Test
+	void dayFirstSampleResolvesLaterValuesAsDayFirst() {
+		DateColumnParser parser = new DateColumnParser();
+		parser.parse("13/01/2026");
+		assertEquals(DateColumnParser.Layout.EU_SLASH, parser.getLayout());
+		assertEquals(LocalDate.of(2026, 2, 1), parser.parse("01/02/2026"));
+		assertFalse(parser.isAmbiguous());
+	}
+
+	@Test
+	void reportsAmbiguousSlashColumn() {
+		DateColumnParser parser = new DateColumnParser(2);
+		assertEquals(LocalDate.of(2026, 1, 2), parser.parse("01/02/2026"));
+		assertTrue(parser.isAmbiguous());
+		parser.parse("03/04/2026");
+		assertEquals(DateColumnParser.Layout.US_SLASH, parser.getLayout());
+		assertTrue(parser.isAmbiguous());
+	}
+
+	@Test
+	void valuesReadDifferentlyBeforeTheLockMakeTheColumnAmbiguous() {
+		DateColumnParser parser = new DateColumnParser();
+		assertEquals(LocalDate.of(2026, 1, 2), parser.parse("01/02/2026"));
+		assertEquals(LocalDate.of(2026, 2, 13), parser.parse("13/02/2026"));
+		assertEquals(DateColumnParser.Layout.EU_SLASH, parser.getLayout());
+		assertEquals(LocalDate.of(2026, 2, 1), parser.parse("01/02/2026"));
+		assertTrue(parser.isAmbiguous());
+
+		// Read the same either way, so nothing was read differently
+		DateColumnParser sameEitherWay = new DateColumnParser();
+		sameEitherWay.parse("02/02/2026");
+		sameEitherWay.parse("13/02/2026");
+		assertFalse(sameEitherWay.isAmbiguous());
+	}
+
+	@Test
+	void outliersFallBackToFormatterChain() {
+		DateColumnParser parser = new DateColumnParser();
+		parser.parse("2026-03-01");
+		// Smart resolution of the MM/dd/yyyy formatter clamps the day, as before
+		assertEquals(LocalDate.of(2026, 2, 28), parser.parse("02/30/2026"));
+		assertEquals(1, parser.getFallbackCount());
+		assertNull(parser.parse(""));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("not a date"));
+	}
+}
@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelEventReaderTests {
+
+	private static final List<String> LEDGER = List.of(
+		"sheet 0 Ledger",
+		"0 [Date, Amount, Paid, Formula, Status]",
+		"1 [2026-01-15, 12.5, true, B2*2, ]",
+		"2 []",
+		"4 [null, null, null, null, late]",
+		"5 [2026-01-15T10:30]",
+		"6 []");
+
+	private static final List<String> EXTRA = List.of(
+		"sheet 1 Extra",
+		"0 [Account, Amount]",
+		"1 [Savings, 7.0]");
+
+	@TempDir
+	File dir;
+
+	@Test
+	void xlsxWithSharedStringsReadsLikeXls() throws Exception {
+		assertEquals(LEDGER, readXlsx(new ExcelEventReader(false), write(new XSSFWorkbook(), "shared.xlsx")));
+		assertEquals(LEDGER, readXls(new ExcelEventReader(false), write(new HSSFWorkbook(), "ledger.xls")));
+	}
+
+	@Test
+	void xlsxWithInlineStringsReadsLikeSharedStrings() throws Exception {
+		try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+			assertEquals(LEDGER, readXlsx(new ExcelEventReader(false), write(workbook, "inline.xlsx")));
+		}
+	}
+
+	@Test
+	void everySheetStartsWithItsOwnHeaderWhenAllSheetsAreRead() throws Exception {
+		List<String> expected = new ArrayList<>(LEDGER);
+		expected.addAll(EXTRA);
+		assertEquals(expected, readXlsx(new ExcelEventReader(true), write(new XSSFWorkbook(), "sheets.xlsx")));
+		assertEquals(expected, readXls(new ExcelEventReader(true), write(new HSSFWorkbook(), "sheets.xls")));
+	}
+
+	@Test
+	void columnIndexReadsCellReferences() {
+		assertEquals(0, ExcelEventReader.columnIndex("A1"));
+		assertEquals(25, ExcelEventReader.columnIndex("Z9"));
+		assertEquals(27, ExcelEventReader.columnIndex("AB12"));
+	}
+
+	/**
+	 * Writes the ledger sheet, with a stored row without cells, a gap, a sparse row and a trailing
+	 * stored row, followed by a second sheet
+	 */
+	private File write(Workbook workbook, String name) throws IOException {
+		CellStyle date = workbook.createCellStyle();
+		date.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+		CellStyle dateTime = workbook.createCellStyle();
+		dateTime.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+
+		Sheet ledger = workbook.createSheet("Ledger");
+		Row header = ledger.createRow(0);
+		String[] headers = {"Date", "Amount", "Paid", "Formula", "Status"};
+		for (int i = 0; i < headers.length; i++) {
+			header.createCell(i).setCellValue(headers[i]);
+		}
+		Row first = ledger.createRow(1);
+		first.createCell(0).setCellValue(LocalDate.of(2026, 1, 15));
+		first.getCell(0).setCellStyle(date);
+		first.createCell(1).setCellValue(12.5);
+		first.createCell(2).setCellValue(true);
+		first.createCell(3).setCellFormula("B2*2");
+		first.createCell(4).setCellErrorValue(FormulaError.DIV0.getCode());
+		ledger.createRow(2);
+		ledger.createRow(4).createCell(4).setCellValue("late");
+		Row timed = ledger.createRow(5);
+		timed.createCell(0).setCellValue(LocalDateTime.of(2026, 1, 15, 10, 30));
+		timed.getCell(0).setCellStyle(dateTime);
+		ledger.createRow(6);
+
+		Sheet extra = workbook.createSheet("Extra");
+		extra.createRow(0).createCell(0).setCellValue("Account");
+		extra.getRow(0).createCell(1).setCellValue("Amount");
+		extra.createRow(1).createCell(0).setCellValue("Savings");
+		extra.getRow(1).createCell(1).setCellValue(7);
+
+		File file = new File(dir, name);
+		try (OutputStream out = new FileOutputStream(file)) {
+			workbook.write(out);
+		}
+		workbook.close();
+		return file;
+	}
+
+	private List<String> readXlsx(ExcelEventReader reader, File file) throws Exception {
+		List<String> events = new ArrayList<>();
+		reader.readXlsx(file, recorder(events));
+		return events;
+	}
+
+	private List<String> readXls(ExcelEventReader reader, File file) throws Exception {
+		List<String> events = new ArrayList<>();
+		reader.readXls(file, recorder(events));
+		return events;
+	}
+
+	private ExcelEventReader.RowHandler recorder(List<String> events) {
+		return new ExcelEventReader.RowHandler() {
+			@Override
+			public void startSheet(int sheetIndex, String sheetName) {
+				events.add("sheet " + sheetIndex + " " + sheetName);
+			}
+
+			@Override
+			public void row(int rowNum, List<String> cells) {
+				events.add(rowNum + " " + cells);
+			}
+		};
+	}
+}
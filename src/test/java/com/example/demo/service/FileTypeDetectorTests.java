@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.UnsupportedFileFormatException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTypeDetectorTests {
+
+	private final FileTypeDetector detector = new FileTypeDetector();
+
+	@Test
+	void containersAreDetectedByTheirMagicBytes() throws IOException {
+		assertEquals(FileTypeDetector.FileType.EXCEL_XLSX, detect("report.zip", null, zip("[Content_Types].xml")));
+		assertEquals(FileTypeDetector.FileType.ZIP, detect("bundle.xls", "application/vnd.ms-excel", zip("part1.csv")));
+		assertEquals(FileTypeDetector.FileType.EXCEL_XLS, detect("legacy.csv", "text/csv",
+			new byte[] {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1, 0}));
+	}
+
+	@Test
+	void mislabelledTextIsSniffedAndGarbageRejected() {
+		assertEquals(FileTypeDetector.FileType.JSON, detect("data.csv", "text/csv", text("\uFEFF  [{\"Amount\": 1}]")));
+		assertEquals(FileTypeDetector.FileType.CSV, detect("data.xls", "application/vnd.ms-excel", text("Date,Amount\n2026-01-01,1\n")));
+		assertEquals(FileTypeDetector.FileType.TEXT, detect("data.json", null, text("Date\tAmount\n2026-01-01\t1\n")));
+		assertEquals(FileTypeDetector.FileType.TEXT, detect("data.txt", null, text("Date,Amount\n2026-01-01,1\n")));
+
+		assertThrows(UnsupportedFileFormatException.class, () -> detect("data.csv", "text/csv", new byte[] {1, 2, 0, 3, 4}));
+		assertThrows(UnsupportedFileFormatException.class, () -> detect("notes.pdf", null, text("Date,Amount\n")));
+	}
+
+	private FileTypeDetector.FileType detect(String filename, String contentType, byte[] content) {
+		return detector.detectFileType(new MockMultipartFile("file", filename, contentType, content));
+	}
+
+	private static byte[] text(String content) {
+		return content.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] zip(String firstEntry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry(firstEntry));
+			zip.write(text("<Types/>"));
+			zip.closeEntry();
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import com.example.demo.dto.ZipFileInfo;
+import com.example.demo.dto.ZipProcessingResult;
+import com.example.demo.exception.FileProcessingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.demo.service.ConversionFixtures.zip;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinancialDataServiceTests {
+
+	private static final String A = "Date,Amount\n2026-01-01,1.00\n2026-01-02,2.00\n";
+	private static final String B = "Date,Amount\n2026-02-01,3.00\n";
+	private static final String C = "Date,Amount\n2026-03-01,4.00\n2026-03-02,5.00\n";
+
+	private final ReversingExecutor zipEntryExecutor = new ReversingExecutor(3);
+	private final ConversionFixtures fixtures = new ConversionFixtures(zipEntryExecutor);
+	private final FinancialDataService service = fixtures.financialDataService;
+
+	@AfterEach
+	void shutDown() {
+		fixtures.close();
+	}
+
+	@Test
+	void entriesMergeInArchiveOrderWhenLaterEntriesFinishFirst() throws IOException {
+		RecordBatch records = new RecordBatch();
+		ZipProcessingResult result = service.processZipFile(zip("a.csv", A, "b.csv", B, "c.csv", C), records);
+
+		assertEquals(List.of(2, 1, 0), zipEntryExecutor.finished);
+		assertEquals(List.of("1.00", "2.00", "3.00", "4.00", "5.00"), amounts(records));
+		assertEquals(List.of(0, 2, 3), result.getFileInfos().stream().map(ZipFileInfo::getFirstRecord).toList());
+		assertEquals(3, result.getSuccessfullyProcessedFiles());
+	}
+
+	@Test
+	void failingEntryContributesNoRecordsWhileItsSiblingsMerge() throws IOException {
+		Set<Path> spools = spoolFiles();
+		RecordBatch records = new RecordBatch();
+		ZipProcessingResult result = service.processZipFile(
+			zip("a.csv", A, "b.json", "[{\"Date\":\"2026-02-01\",\"Amount\":3},{\"Amount\":", "c.csv", C), records);
+
+		assertEquals(List.of("1.00", "2.00", "4.00", "5.00"), amounts(records));
+		ZipFileInfo failed = result.getFileInfos().get(1);
+		assertFalse(failed.isProcessed());
+		assertNotNull(failed.getErrorMessage());
+		assertEquals(2, result.getFileInfos().get(2).getFirstRecord());
+		assertEquals(2, result.getSuccessfullyProcessedFiles());
+		assertEquals(spools, spoolFiles());
+	}
+
+	@Test
+	void failedMergeDiscardsTheSpoolsOfPendingEntries() throws IOException {
+		Set<Path> spools = spoolFiles();
+		FinancialRecordSink failing = record -> {
+			throw new IllegalStateException("sink full");
+		};
+
+		FileProcessingException e = assertThrows(FileProcessingException.class,
+			() -> service.processZipFile(zip("a.csv", A, "b.csv", B, "c.csv", C), failing));
+		assertTrue(e.getMessage().contains("sink full"));
+		assertEquals(List.of(2, 1, 0), zipEntryExecutor.finished);
+		assertEquals(spools, spoolFiles());
+	}
+
+	private static List<String> amounts(RecordBatch records) {
+		List<String> amounts = new ArrayList<>();
+		for (FinancialDataRecord record : records) {
+			BigDecimal amount = record.getAmount();
+			amounts.add(amount.setScale(2).toPlainString());
+		}
+		return amounts;
+	}
+
+	private static Set<Path> spoolFiles() throws IOException {
+		Set<Path> files = new HashSet<>();
+		Path tmp = Path.of(System.getProperty("java.io.tmpdir"));
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(tmp, "financial-records-*.spool")) {
+			stream.forEach(files::add);
+		}
+		return files;
+	}
+
+	/**
+	 * Single worker that holds the entries until all of them are submitted and then parses them
+	 * last first, recording the archive positions of the entries in the order they finish
+	 */
+	private static class ReversingExecutor extends ThreadPoolExecutor {
+		private final int entries;
+		private final List<Runnable> held = new ArrayList<>();
+		private final List<Integer> finished = new ArrayList<>();
+
+		ReversingExecutor(int entries) {
+			super(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+			this.entries = entries;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			held.add(task);
+			if (held.size() == entries) {
+				for (int i = held.size() - 1; i >= 0; i--) {
+					super.execute(held.get(i));
+				}
+			}
+		}
+
+		@Override
+		protected void beforeExecute(Thread worker, Runnable task) {
+			// One worker finishes each entry before starting the next
+			finished.add(held.indexOf(task));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedUploadTests {
+
+	@Test
+	void copyCarriesHashAndHeaderAndIsDeletedOnClose() throws IOException {
+		byte[] content = "Date,Amount\n".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+		Path path;
+		try (HashedUpload upload = HashedUpload.copyOf(new MockMultipartFile("file", "data.csv", "text/csv", content))) {
+			path = upload.getPath();
+			assertArrayEquals(content, Files.readAllBytes(path));
+			assertEquals(content.length, upload.getSize());
+			assertArrayEquals(Arrays.copyOf(content, FileTypeDetector.HEADER_BYTES), upload.getHeader());
+			assertEquals("data.csv", upload.getOriginalFilename());
+
+			HashedUpload again = HashedUpload.copyOf(upload);
+			assertEquals(upload.getContentHash(), again.getContentHash());
+			again.close();
+		}
+		assertFalse(Files.exists(path));
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonEventReaderTests {
+
+	private final JsonEventReader reader = new JsonEventReader(new ObjectMapper());
+
+	@Test
+	void readsArraysWrappersAndJsonLines() throws IOException {
+		assertEquals(List.of(Map.of("Amount", 1.5), Map.of("Amount", 2)),
+			read("[{\"Amount\": 1.5}, {\"Amount\": 2}]"));
+		assertEquals(List.of(Map.of("Amount", 1), Map.of("Amount", 2)),
+			read("{\"account\": {\"id\": 7}, \"transactions\": [{\"Amount\": 1}, {\"Amount\": 2}], \"count\": 2}"));
+		assertEquals(List.of(Map.of("Amount", 1, "Tags", List.of("a", "b")), Map.of("Amount", 2, "Tags", List.of())),
+			read("{\"Amount\": 1, \"Tags\": [\"a\", \"b\"]}\n{\"Amount\": 2, \"Tags\": []}\n"));
+	}
+
+	@Test
+	void nestedArraysOfObjectsStayFieldsOfTheirRecord() throws IOException {
+		assertEquals(List.of(Map.of("date", "2026-01-01", "amount", 5,
+				"splits", List.of(Map.of("amount", 2), Map.of("amount", 3)))),
+			read("{\"date\":\"2026-01-01\",\"amount\":5,\"splits\":[{\"amount\":2},{\"amount\":3}]}"));
+		// Under a wrapper name too, once the object has a date or an amount of its own
+		assertEquals(List.of(Map.of("date", "2026-01-01", "amount", 5,
+				"data", List.of(Map.of("amount", 2), Map.of("amount", 3)))),
+			read("{\"date\":\"2026-01-01\",\"amount\":5,\"data\":[{\"amount\":2},{\"amount\":3}]}"));
+		assertEquals(List.of(Map.of("Amount", 1, "Rows", List.of()), Map.of("Amount", 2)),
+			read("{\"Amount\":1,\"Rows\":[]}\n{\"records\":[{\"Amount\":2}]}\n"));
+	}
+
+	@Test
+	void emptyWrapperArraysYieldNoRecords() throws IOException {
+		assertEquals(List.of(), read("{\"account\":\"A\",\"transactions\":[]}"));
+		assertEquals(List.of(Map.of("Amount", 1)),
+			read("{\"account\":\"A\",\"transactions\":[]}\n{\"Records\":[{\"Amount\":1}]}\n"));
+	}
+
+	@Test
+	void rejectsArraysOfNonRecords() {
+		assertThrows(JsonParseException.class, () -> read("[{\"Amount\": 1}, 2]"));
+	}
+
+	private List<Map<String, Object>> read(String json) throws IOException {
+		List<Map<String, Object>> records = new ArrayList<>();
+		int count = reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), records::add);
+		assertEquals(records.size(), count);
+		return records;
+	}
+}
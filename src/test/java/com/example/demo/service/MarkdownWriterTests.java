@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownWriterTests {
+
+	@Test
+	void currencyMatchesTheFormatPattern() throws IOException {
+		String[] amounts = {
+			"0", "0.005", "-0.005", "-0.001", "-0.00", "1234.565", "-1234567.894", "999.995",
+			"92233720368547758.07", "-92233720368547758.08", "12345678901234567890.125"
+		};
+		for (String amount : amounts) {
+			BigDecimal value = new BigDecimal(amount);
+			assertEquals(String.format(Locale.US, "$%,.2f", value), write(md -> md.currency(value)), amount);
+		}
+		assertEquals("N/A", write(md -> md.currency(null)));
+	}
+
+	@Test
+	void minorUnitsMatchTheFormatPattern() throws IOException {
+		long[] values = { 0, 5, -5, 123456, -100000, Long.MAX_VALUE, Long.MIN_VALUE };
+		for (long cents : values) {
+			BigDecimal value = BigDecimal.valueOf(cents, 2);
+			assertEquals(String.format(Locale.US, "$%,.2f", value), write(md -> md.currencyMinorUnits(cents)));
+		}
+	}
+
+	@Test
+	void cellsAndDatesAreWrittenInOneScan() throws IOException {
+		assertEquals("a\\|b c d", write(md -> md.cell("a|b\nc\rd")));
+		assertEquals("", write(md -> md.cell(null)));
+		assertEquals("2026-01-05", write(md -> md.date(LocalDate.of(2026, 1, 5))));
+		assertEquals("0042-12-31", write(md -> md.date(LocalDate.of(42, 12, 31))));
+		assertEquals("-42 null", write(md -> md.number(-42).text(' ').text(null)));
+	}
+
+	private static String write(Section section) throws IOException {
+		StringWriter out = new StringWriter();
+		section.writeTo(new MarkdownWriter(out));
+		return out.toString();
+	}
+
+	private interface Section {
+		void writeTo(MarkdownWriter md) throws IOException;
+	}
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordBatchTests {
+
+	@Test
+	void viewAdapterReturnsWhatWasAdded() {
+		RecordBatch batch = new RecordBatch();
+		FinancialDataRecord record = record(1, "12.3456", "Groceries");
+		batch.add(record);
+		batch.add(new FinancialDataRecord(new LinkedHashMap<>()));
+
+		assertEquals(2, batch.size());
+		FinancialDataRecord view = batch.get(0);
+		assertEquals(record.getFields(), view.getFields());
+		assertEquals(record.getDate(), view.getDate());
+		assertEquals(new BigDecimal("12.3456"), view.getAmount());
+		assertEquals("Groceries", view.getCategory());
+		assertNull(batch.get(1).getAmount());
+		assertFalse(batch.hasFields(1));
+	}
+
+	@Test
+	void amountsAndCategoriesAreStoredInColumns() {
+		RecordBatch batch = new RecordBatch();
+		for (int i = 0; i < 100; i++) {
+			batch.add(record(i, "-1.50", i % 2 == 0 ? "Food" : "Rent"));
+		}
+		batch.add(record(100, "0.001", null));
+
+		assertEquals(101, batch.getAmountCount());
+		assertTrue(batch.isMinorUnitAmount(0));
+		assertEquals(-150, batch.getAmountMinorUnits(0));
+		assertFalse(batch.isMinorUnitAmount(100));
+		assertEquals(2, batch.getCategories().cardinality());
+		assertEquals("Food", batch.getCategories().valueOf(batch.getCategories().code(0)));
+		assertEquals(-1, batch.getCategories().code(100));
+	}
+
+	@Test
+	void spoolReplaysBatchesFromDisk() {
+		List<FinancialDataRecord> records = new ArrayList<>();
+		try (RecordSpool spool = new RecordSpool()) {
+			for (int i = 0; i < RecordSpool.BATCH_SIZE + 10; i++) {
+				FinancialDataRecord record = record(i, i + ".25", "Cat" + (i % 3));
+				records.add(record);
+				spool.add(record);
+			}
+
+			int batches = 0;
+			for (RecordBatch batch : spool.batches()) {
+				batches++;
+			}
+			assertEquals(2, batches);
+			assertEquals(records, new ArrayList<>(spool));
+		}
+	}
+
+	@Test
+	void boundRowsGoStraightIntoTheColumnsAndReplayUnchanged() {
+		RecordBinder binder = new RecordBinder();
+		binder.setHeaders(new String[] {"Date", "Amount", "Memo", "Memo", "Category"});
+		Object[][] rows = {
+			{"2026-01-01", "12.50", "first", "second", "Food"},
+			{"2026-01-02", "0.125", "only"},
+			{"", "N/A", "a", "b", "Rent"}
+		};
+		RecordBatch direct = new RecordBatch();
+		RecordBatch viaRecords = new RecordBatch();
+		for (Object[] row : rows) {
+			direct.acceptRow(binder.bindRow(row));
+			viaRecords.add(binder.bind(row));
+		}
+
+		assertEquals(viaRecords, direct);
+		assertEquals(viaRecords.getFieldNames(), direct.getFieldNames());
+		assertTrue(direct.isMinorUnitAmount(0));
+		assertEquals(1250, direct.getAmountMinorUnits(0));
+		assertEquals(new BigDecimal("0.125"), direct.getAmount(1));
+		assertEquals("second", direct.get(0).getFields().get("Memo"));
+
+		SummaryAggregator summary = new SummaryAggregator();
+		RecordBatch replayed = new RecordBatch();
+		direct.forEachRow(replayed.andThen(summary));
+		assertEquals(direct, replayed);
+		assertEquals(new BigDecimal("12.625"), summary.getTotal());
+		assertEquals(new BigDecimal("0.125"), summary.getMinimum());
+		assertEquals(new BigDecimal("12.50"), summary.getMaximum());
+		assertEquals(2, summary.getRecordsWithDate());
+	}
+
+	private static FinancialDataRecord record(int day, String amount, String category) {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("Date", LocalDate.ofEpochDay(20000 + day).toString());
+		fields.put("Amount", amount);
+		fields.put("Category", category);
+		return new FinancialDataRecord(fields, LocalDate.ofEpochDay(20000 + day), new BigDecimal(amount),
+			null, category, "Checking");
+	}
+}
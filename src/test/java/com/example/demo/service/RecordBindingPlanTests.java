@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordBindingPlanTests {
+
+	@Test
+	void exactHeadersRankAheadOfPartialMatchesOnTheSameKeyword() {
+		assertArrayEquals(new int[] {1, 0}, plan("Amount Due", "Amount").getAmountColumns());
+		assertArrayEquals(new int[] {2, 1, 0}, plan("Account Type", "Type", "Category").getCategoryColumns());
+		// Keyword priority comes first: a partial "amount" outranks an exact "value"
+		assertArrayEquals(new int[] {1, 0}, plan("Value", "Total Amount").getAmountColumns());
+	}
+
+	@Test
+	void equallyRankedHeadersKeepColumnOrder() {
+		assertArrayEquals(new int[] {0, 1}, plan("Debit Amount", "Credit Amount").getAmountColumns());
+		assertArrayEquals(new int[] {1, 2}, plan("Date", "Note 2", "Note 1").getDescriptionColumns());
+	}
+
+	@Test
+	void dateLikeHeadersAreNeverAmountCandidates() {
+		RecordBindingPlan plan = plan("Value Date", "Value", "Balance Date");
+		assertArrayEquals(new int[] {1}, plan.getAmountColumns());
+		assertArrayEquals(new int[] {0, 2}, plan.getDateColumns());
+	}
+
+	@Test
+	void lastDuplicateHeaderWinsAndKeepsTheFirstPosition() {
+		RecordBindingPlan plan = plan("Amount", "Date", "Amount", null);
+		assertArrayEquals(new int[] {2}, plan.getAmountColumns());
+		Map<String, Object> fields = plan.toFields(new Object[] {"1", "2026-01-01", "3", "ignored"});
+		assertEquals(List.of("Amount", "Date"), new ArrayList<>(fields.keySet()));
+		assertEquals("3", fields.get("Amount"));
+		assertEquals("1", plan.toFields(new Object[] {"1", "2026-01-01"}).get("Amount"));
+	}
+
+	private static RecordBindingPlan plan(String... headers) {
+		return RecordBindingPlan.compile(headers);
+	}
+}
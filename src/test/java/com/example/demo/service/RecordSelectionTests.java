@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordSelectionTests {
+
+	@Test
+	void largestAmountsAreOrderedByMagnitudeThenRecordNumber() {
+		RecordBatch batch = new RecordBatch();
+		String[] amounts = { "10", "-300", null, "300", "0.001", "12345678901234567890", "20" };
+		for (String amount : amounts) {
+			batch.add(record(amount));
+		}
+
+		RecordSelection top = RecordSelection.largestAmounts(batch, 3);
+
+		assertArrayEquals(new int[] { 6, 2, 4 }, top.getRecordNumbers());
+		assertEquals(0, new BigDecimal("-300").compareTo(top.getRecords().get(1).getAmount()));
+		assertEquals(batch.getFieldNames(), top.getRecords().getFieldNames());
+	}
+
+	@Test
+	void sampleIsBoundedRepeatableAndInRecordOrder() {
+		RecordBatch batch = new RecordBatch();
+		for (int i = 0; i < 1000; i++) {
+			batch.add(record(String.valueOf(i)));
+		}
+
+		int[] sample = RecordSelection.sample(batch, 10).getRecordNumbers();
+
+		assertEquals(10, sample.length);
+		for (int i = 1; i < sample.length; i++) {
+			assertTrue(sample[i - 1] < sample[i]);
+		}
+		assertArrayEquals(sample, RecordSelection.sample(batch, 10).getRecordNumbers());
+		assertEquals(1000, RecordSelection.sample(batch, 5000).getRecordNumbers().length);
+	}
+
+	private static FinancialDataRecord record(String amount) {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("Amount", amount);
+		FinancialDataRecord record = new FinancialDataRecord(fields);
+		record.setAmount(amount != null ? new BigDecimal(amount) : null);
+		return record;
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static com.example.demo.service.ConversionFixtures.zip;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders the uploads under {@code golden/} and compares the reports with the expected ones kept
+ * next to them. A change to the report layout or to parsed values shows up here, and should come
+ * with a bump of the {@link ConversionCache} format version.
+ */
+class ReportGoldenTests {
+
+	private final ConversionFixtures fixtures = new ConversionFixtures();
+
+	@AfterEach
+	void shutDown() {
+		fixtures.close();
+	}
+
+	@Test
+	void csvReportMatchesTheGoldenReport() throws IOException {
+		MockMultipartFile file = new MockMultipartFile("file", "ledger.csv", "text/csv", resource("ledger.csv"));
+		assertEquals(text("ledger.csv.md"), render(file, "ledger.csv"));
+	}
+
+	@Test
+	void zipReportMatchesTheGoldenReport() throws IOException {
+		MockMultipartFile file = zip("a.csv", text("bundle-a.csv"), "b.json", text("bundle-b.json"));
+		assertEquals(text("bundle.zip.md"), render(file, "bundle.zip"));
+	}
+
+	private String render(MockMultipartFile file, String filename) throws IOException {
+		try (ConversionService.PreparedReport report = fixtures.conversionService.prepare(file, filename,
+				ReportOptions.FULL, new ConversionProgress())) {
+			StringWriter writer = new StringWriter();
+			report.render(writer);
+			return writer.toString();
+		}
+	}
+
+	private static String text(String name) throws IOException {
+		return new String(resource(name), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] resource(String name) throws IOException {
+		try (InputStream in = ReportGoldenTests.class.getResourceAsStream("/golden/" + name)) {
+			assertNotNull(in, "missing golden resource " + name);
+			return in.readAllBytes();
+		}
+	}
+}
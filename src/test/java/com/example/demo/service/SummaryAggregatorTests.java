@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FinancialDataRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryAggregatorTests {
+
+	@Test
+	void recordAndBatchAggregationAgree() {
+		List<FinancialDataRecord> records = records();
+		SummaryAggregator streamed = new SummaryAggregator();
+		records.forEach(streamed::accept);
+		SummaryAggregator batched = SummaryAggregator.of(RecordBatch.copyOf(records));
+
+		for (SummaryAggregator summary : List.of(streamed, batched)) {
+			assertEquals(5, summary.getCount());
+			assertEquals(4, summary.getRecordsWithAmount());
+			assertEquals(0, new BigDecimal("3850.125").compareTo(summary.getTotal()));
+			assertEquals(new BigDecimal("962.53"), summary.getAverage());
+			assertEquals(0, new BigDecimal("-1200").compareTo(summary.getMinimum()));
+			assertEquals(0, new BigDecimal("5000").compareTo(summary.getMaximum()));
+			assertEquals(List.of("Income", "Expense"), new ArrayList<>(summary.getCategories().keySet()));
+			assertEquals(2, summary.getCategories().get("Expense").getCount());
+			assertEquals(0, new BigDecimal("-1149.875").compareTo(summary.getCategories().get("Expense").getTotal()));
+			assertEquals(0, new BigDecimal("3800").compareTo(summary.getAccounts().get("Checking").getTotal()));
+		}
+	}
+
+	@Test
+	void mergedFileSummariesMatchOnePass() {
+		List<FinancialDataRecord> records = records();
+		SummaryAggregator first = new SummaryAggregator();
+		SummaryAggregator second = new SummaryAggregator();
+		records.subList(0, 2).forEach(first::accept);
+		records.subList(2, records.size()).forEach(second::accept);
+		SummaryAggregator whole = new SummaryAggregator();
+		records.forEach(whole::accept);
+
+		SummaryAggregator merged = first.merge(second);
+		assertEquals(whole.getCount(), merged.getCount());
+		assertEquals(0, whole.getTotal().compareTo(merged.getTotal()));
+		assertEquals(whole.getMinimum(), merged.getMinimum());
+		assertEquals(new ArrayList<>(whole.getAccounts().keySet()), new ArrayList<>(merged.getAccounts().keySet()));
+	}
+
+	private static List<FinancialDataRecord> records() {
+		List<FinancialDataRecord> records = new ArrayList<>();
+		records.add(record("5000.00", "Income", "Checking"));
+		records.add(record("-1200.00", "Expense", "Checking"));
+		records.add(record("50.125", "Expense", "Credit Card"));
+		records.add(record(null, "", "Credit Card"));
+		records.add(record("0", null, null));
+		return records;
+	}
+
+	private static FinancialDataRecord record(String amount, String category, String account) {
+		Map<String, Object> fields = new HashMap<>();
+		fields.put("Amount", amount);
+		return new FinancialDataRecord(fields, null, amount != null ? new BigDecimal(amount) : null,
+			null, category, account);
+	}
+}